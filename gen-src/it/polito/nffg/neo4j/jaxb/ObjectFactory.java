@@ -108,6 +108,14 @@ public class ObjectFactory {
         return new Nffg();
     }
 
+    /**
+     * Create an instance of {@link EpCp }
+     * 
+     */
+    public EpCp createEpCp() {
+        return new EpCp();
+    }
+
     /**
      * Create an instance of {@link EpointsType }
      * 
@@ -220,6 +228,70 @@ public class ObjectFactory {
         return new Paths();
     }
 
+    /**
+     * Create an instance of {@link BatchResult }
+     * 
+     */
+    public BatchResult createBatchResult() {
+        return new BatchResult();
+    }
+
+    /**
+     * Create an instance of {@link BatchResult.Graph }
+     * 
+     */
+    public BatchResult.Graph createBatchResultGraph() {
+        return new BatchResult.Graph();
+    }
+
+    /**
+     * Create an instance of {@link Job }
+     * 
+     */
+    public Job createJob() {
+        return new Job();
+    }
+
+    /**
+     * Create an instance of {@link Indexes }
+     * 
+     */
+    public Indexes createIndexes() {
+        return new Indexes();
+    }
+
+    /**
+     * Create an instance of {@link ResponseCache }
+     * 
+     */
+    public ResponseCache createResponseCache() {
+        return new ResponseCache();
+    }
+
+    /**
+     * Create an instance of {@link Summaries }
+     * 
+     */
+    public Summaries createSummaries() {
+        return new Summaries();
+    }
+
+    /**
+     * Create an instance of {@link Summaries.Graph }
+     * 
+     */
+    public Summaries.Graph createSummariesGraph() {
+        return new Summaries.Graph();
+    }
+
+    /**
+     * Create an instance of {@link ReachabilityMatrix }
+     * 
+     */
+    public ReachabilityMatrix createReachabilityMatrix() {
+        return new ReachabilityMatrix();
+    }
+
     /**
      * Create an instance of {@link HttpMessage }
      * 
@@ -236,6 +308,14 @@ public class ObjectFactory {
         return new Property();
     }
 
+    /**
+     * Create an instance of {@link Indexes.Index }
+     * 
+     */
+    public Indexes.Index createIndexesIndex() {
+        return new Indexes.Index();
+    }
+
     /**
      * Create an instance of {@link FlowrulesType.Flowspace.Mac }
      * 
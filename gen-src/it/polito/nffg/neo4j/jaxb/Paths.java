@@ -27,10 +27,13 @@ import javax.xml.bind.annotation.XmlType;
  * &lt;complexType>
  *   &lt;complexContent>
  *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
- *       &lt;choice>
- *         &lt;element name="message" type="{http://www.w3.org/2001/XMLSchema}string"/>
- *         &lt;element name="path" type="{http://www.w3.org/2001/XMLSchema}string" maxOccurs="unbounded"/>
- *       &lt;/choice>
+ *       &lt;sequence>
+ *         &lt;choice>
+ *           &lt;element name="message" type="{http://www.w3.org/2001/XMLSchema}string"/>
+ *           &lt;element name="path" type="{http://www.w3.org/2001/XMLSchema}string" maxOccurs="unbounded"/>
+ *         &lt;/choice>
+ *         &lt;element name="truncated" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *       &lt;/sequence>
  *       &lt;attribute name="source" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="destination" type="{http://www.w3.org/2001/XMLSchema}string" />
  *       &lt;attribute name="direction" type="{http://www.w3.org/2001/XMLSchema}string" />
@@ -44,7 +47,8 @@ import javax.xml.bind.annotation.XmlType;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "", propOrder = {
     "message",
-    "path"
+    "path",
+    "truncated"
 })
 @XmlRootElement(name = "paths", namespace = "http://www.example.org/response/")
 public class Paths {
@@ -53,6 +57,8 @@ public class Paths {
     protected String message;
     @XmlElement(namespace = "http://www.example.org/response/")
     protected List<String> path;
+    @XmlElement(namespace = "http://www.example.org/response/")
+    protected Boolean truncated;
     @XmlAttribute(name = "source")
     protected String source;
     @XmlAttribute(name = "destination")
@@ -113,6 +119,30 @@ public class Paths {
         return this.path;
     }
 
+    /**
+     * Gets the value of the truncated property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * Sets the value of the truncated property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setTruncated(Boolean value) {
+        this.truncated = value;
+    }
+
     /**
      * Gets the value of the source property.
      * 
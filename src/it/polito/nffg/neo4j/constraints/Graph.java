@@ -34,6 +34,7 @@ import javax.validation.Constraint;
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
 import javax.validation.Payload;
+import javax.ws.rs.core.Response.Status;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.MarshalException;
@@ -47,6 +48,7 @@ import javax.xml.validation.SchemaFactory;
 import org.xml.sax.SAXException;
 
 import it.polito.nffg.neo4j.config.Neo4jApplication;
+import it.polito.nffg.neo4j.jaxb.EpCp;
 import it.polito.nffg.neo4j.jaxb.Nffg;
 
 /**
@@ -75,9 +77,12 @@ public @interface Graph
 	public class Validator implements ConstraintValidator<Graph, Nffg>
 	{
 		private String message;
+		private Status status;
 		private Properties pr = Neo4jApplication.PropCache.getProp();
 		private final String xsdPath = pr.getProperty("my.user.dir") + "/schema/" + pr.getProperty("schemaForValidating");
 		private static Logger logger = Logger.getLogger(Validator.class.getCanonicalName());
+		private static JAXBContext jaxbContext;
+		private static Schema schema;
 		
 		/**
 		 * Initialize the validator in preparation for isValid calls. 
@@ -90,6 +95,41 @@ public @interface Graph
 		public void initialize(Graph graph) 
 		{
 			message = "Server error during validation phase";
+			status = Status.INTERNAL_SERVER_ERROR;
+		}
+		
+		/**
+		 * Outcome of a failed validation done outside of a Bean Validation context: 
+		 * the status that has to be reported (Bad Request if the element doesn't respect the schema, 
+		 * Internal Server Error if the validation couldn't be done) and the validation error message.
+		 */
+		public static class Result
+		{
+			private final Status status;
+			private final String message;
+			
+			Result(Status status, String message)
+			{
+				this.status = status;
+				this.message = message;
+			}
+			
+			/**
+			 * @return the HTTP status associated with the failure.
+			 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/Response.Status.html">Status</a>
+			 */
+			public Status getStatus()
+			{
+				return status;
+			}
+			
+			/**
+			 * @return the validation error message.
+			 */
+			public String getMessage()
+			{
+				return message;
+			}
 		}
 
 		/**
@@ -115,18 +155,64 @@ public @interface Graph
 			return true;
 		}
 		
-		private boolean MyMarshal(Nffg graph, String xsd)
+		/**
+		 * Validate a graph against the given XSD schema outside of a Bean Validation context, e.g. each graph of a set.
+		 * 
+		 * @param graph the graph to validate.
+		 * @return null if validation has been successful, otherwise the status and the message of the failure.
+		 * @see Nffg
+		 * @see Result
+		 */
+		public Result validate(Nffg graph)
+		{
+			initialize(null);
+			
+			return MyMarshal(graph, xsdPath) ? null : new Result(status, message);
+		}
+		
+		/**
+		 * Validate an ep-cp (sent alone to change the flowrules of a network element) against the given XSD schema.
+		 * 
+		 * @param epcp the ep-cp to validate.
+		 * @return null if validation has been successful, otherwise the status and the message of the failure.
+		 * @see EpCp
+		 * @see Result
+		 */
+		public Result validate(EpCp epcp)
+		{
+			initialize(null);
+			
+			return MyMarshal(epcp, xsdPath) ? null : new Result(status, message);
+		}
+		
+		// The context and the schema are thread-safe, then they are created only once.
+		private static synchronized JAXBContext getJaxbContext() throws JAXBException
+		{
+			if (jaxbContext == null) {
+				jaxbContext = JAXBContext.newInstance("it.polito.nffg.neo4j.jaxb");
+			}
+			
+			return jaxbContext;
+		}
+		
+		private static synchronized Schema getSchema(String xsd) throws SAXException
+		{
+			if (schema == null) {
+				schema = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new File(xsd));
+			}
+			
+			return schema;
+		}
+		
+		private boolean MyMarshal(Object element, String xsd)
 		{
 			try
 			{
-				JAXBContext jc = JAXBContext.newInstance("it.polito.nffg.neo4j.jaxb");
-				Marshaller m = jc.createMarshaller();
-				SchemaFactory sf = SchemaFactory.newInstance(javax.xml.XMLConstants.W3C_XML_SCHEMA_NS_URI);
+				Marshaller m = getJaxbContext().createMarshaller();
 				
 				try
 				{
-					Schema schema = sf.newSchema(new File(xsd));
-					m.setSchema(schema);
+					m.setSchema(getSchema(xsd));
 					
 					m.setEventHandler(new ValidationEventHandler() 
 					{
@@ -136,6 +222,7 @@ public @interface Graph
 							if (ve.getSeverity() != ValidationEvent.WARNING) 
 							{
 								message = ve.getMessage();
+								status = Status.BAD_REQUEST;
 								logger.log(Level.SEVERE, message);
 								
 								return false;
@@ -151,7 +238,7 @@ public @interface Graph
 	                return false;
 	            }
 				
-	            m.marshal(graph, new DOMResult());
+	            m.marshal(element, new DOMResult());
 	            return true;
 			}
 			catch (MarshalException e) 
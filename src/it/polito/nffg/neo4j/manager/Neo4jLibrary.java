@@ -22,24 +22,35 @@
 package it.polito.nffg.neo4j.manager;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamException;
 
-import org.neo4j.graphalgo.GraphAlgoFactory;
-import org.neo4j.graphalgo.PathFinder;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Lock;
 import org.neo4j.graphdb.Node;
-import org.neo4j.graphdb.Path;
-import org.neo4j.graphdb.PathExpanders;
 import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
@@ -47,13 +58,11 @@ import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.TransactionFailureException;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
-import org.neo4j.graphdb.schema.ConstraintDefinition;
-import org.neo4j.graphdb.schema.ConstraintType;
-import org.neo4j.graphdb.traversal.Paths;
 import org.neo4j.tooling.GlobalGraphOperations;
 
 import it.polito.nffg.neo4j.config.Neo4jApplication;
 import it.polito.nffg.neo4j.exceptions.MyConstraintViolationException;
+import it.polito.nffg.neo4j.exceptions.MyGenericException;
 import it.polito.nffg.neo4j.exceptions.MyNotFoundException;
 import it.polito.nffg.neo4j.jaxb.ActionEnumType;
 import it.polito.nffg.neo4j.jaxb.ActionType;
@@ -62,10 +71,12 @@ import it.polito.nffg.neo4j.jaxb.CiType;
 import it.polito.nffg.neo4j.jaxb.CpType;
 import it.polito.nffg.neo4j.jaxb.CpointsType;
 import it.polito.nffg.neo4j.jaxb.CtrlInterfacesType;
+import it.polito.nffg.neo4j.jaxb.EpCp;
 import it.polito.nffg.neo4j.jaxb.EpCpType;
 import it.polito.nffg.neo4j.jaxb.EpType;
 import it.polito.nffg.neo4j.jaxb.EpsCpsType;
 import it.polito.nffg.neo4j.jaxb.FlowrulesType;
+import it.polito.nffg.neo4j.jaxb.Indexes;
 import it.polito.nffg.neo4j.jaxb.MonParamsType;
 import it.polito.nffg.neo4j.jaxb.NeType;
 import it.polito.nffg.neo4j.jaxb.NfType;
@@ -77,16 +88,8 @@ import it.polito.nffg.neo4j.jaxb.PortType;
 import it.polito.nffg.neo4j.jaxb.SpecType;
 import it.polito.nffg.neo4j.jaxb.CiType.Attributes;
 import it.polito.nffg.neo4j.jaxb.CiType.Attributes.Attribute;
-import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Ip;
-import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Mac;
-import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Tcp;
-import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Udp;
 import it.polito.nffg.neo4j.jaxb.MonParamsType.Parameter;
-import it.polito.nffg.neo4j.jaxb.SpecType.Cpu;
-import it.polito.nffg.neo4j.jaxb.SpecType.Deployment;
-import it.polito.nffg.neo4j.jaxb.SpecType.Image;
-import it.polito.nffg.neo4j.jaxb.SpecType.Memory;
-import it.polito.nffg.neo4j.jaxb.SpecType.Storage;
+import it.polito.nffg.neo4j.jaxb.Summaries;
 
 /**
  * The Neo4jLibrary is an enumeration with only one possible value,
@@ -100,21 +103,58 @@ public enum Neo4jLibrary
 	private GraphDatabaseService graphDB;
 	private GlobalGraphOperations gcOperations; 
 	private ObjectFactory obFactory;
+	private NffgWriter<Node> nffgWriter;
+	private NffgIdAllocator idAllocator;
 	private Properties pr = Neo4jApplication.PropCache.getProp();
 	private static final int MAX_DEPTH = 50;
 	private final String dbPath = pr.getProperty("my.user.dir") + "/" + pr.getProperty("graphDBPath");
+	private final boolean batchedWrites = !"cypher".equalsIgnoreCase(pr.getProperty("nffgWriteMode", "batched"));
+	private final boolean scanReads = "scan".equalsIgnoreCase(pr.getProperty("nffgReadMode", "traversal"));
+	private final int groupCommitWindow = Integer.parseInt(pr.getProperty("groupCommitWindowMs", "0"));
+	private final int groupCommitMaxGraphs = Integer.parseInt(pr.getProperty("groupCommitMaxGraphs", "64"));
+	private final int retrieveParallelism = Integer.parseInt(pr.getProperty("retrieveParallelism", 
+																		   String.valueOf(Runtime.getRuntime().availableProcessors())));
+	private static final int RETRIEVE_CHUNK = 16;
+	private ForkJoinPool retrievers;
+	private NffgWriteCoalescer writeCoalescer;
+	private final NffgResponseCache responseCache = NffgResponseCache.instance;
+	private final List<Runnable> shutdownTasks = new CopyOnWriteArrayList<Runnable>();
+	static final long WRITERS_SHUTDOWN_TIMEOUT = 30000;
+	private static Logger logger = Logger.getLogger(Neo4jLibrary.class.getCanonicalName());
+	private final NffgReachabilityIndex reachabilityIndex = new NffgReachabilityIndex(Long.parseLong(pr.getProperty("reachabilityIndexBytes", "16777216")));
 	
 	private Neo4jLibrary()
 	{
 		dbFactory = new GraphDatabaseFactory();
 		graphDB = dbFactory.newEmbeddedDatabase(new File(dbPath)); //pwd = nffg
-		registerShutdownHook(graphDB);
-		setConstraints();
+		NffgSchema.createConstraints(graphDB);
+		NffgSchema.createIndexes(graphDB);
+		NffgSchema.awaitIndexes(graphDB, Long.parseLong(pr.getProperty("indexOnlineTimeout", "60")));
+		idAllocator = NffgIdAllocator.open(graphDB, new File(dbPath));
+		registerShutdownHook(new File(dbPath));
 		gcOperations = GlobalGraphOperations.at(graphDB);
 		obFactory = new ObjectFactory();
+		nffgWriter = NffgWriter.forDatabase(graphDB);
+		
+		if (batchedWrites && groupCommitWindow > 0)
+		{
+			writeCoalescer = new NffgWriteCoalescer(new NffgWriteCoalescer.GroupWriter()
+			{
+				@Override
+				public List<CreationResult> write(List<Nffg> graphs)
+				{
+					return createNffgs(graphs, graphs.size());
+				}
+			}, groupCommitWindow, groupCommitMaxGraphs);
+		}
+		
+		if (retrieveParallelism > 1)
+		{
+			retrievers = new ForkJoinPool(retrieveParallelism);
+		}
 	}
 	
-	private static void registerShutdownHook(final GraphDatabaseService graphDB)
+	private void registerShutdownHook(final File storeDir)
 	{
 	    // Registers a shutdown hook for the Neo4j instance so that it shuts down 
 		// nicely when the VM exits (even if you "Ctrl-C" the running application).
@@ -123,11 +163,42 @@ public enum Neo4jLibrary
 	        @Override
 	        public void run()
 	        {
+	        	// The writers are stopped first, so that no id is allocated after the snapshot has been saved.
+	        	for (Runnable task : shutdownTasks)
+	        	{
+	        		task.run();
+	        	}
+	        	
+	        	if (writeCoalescer != null)
+	        	{
+	        		writeCoalescer.close(WRITERS_SHUTDOWN_TIMEOUT);
+	        	}
+	        	
 	            graphDB.shutdown();
+	            
+	            try
+	            {
+	            	idAllocator.save(storeDir);
+	            }
+	            catch (IOException e)
+	            {
+	            	logger.log(Level.SEVERE, "The snapshot of the graph ids can't be saved", e);
+	            }
 	        }
 	    });
 	}
 	
+	/**
+	 * Registers a task run when the VM exits, before the database is shut down: 
+	 * the components that write graphs on their own threads use it to stop their writers.
+	 * 
+	 * @param task the task, that has to return within {@link #WRITERS_SHUTDOWN_TIMEOUT} milliseconds.
+	 */
+	void addShutdownTask(Runnable task)
+	{
+		shutdownTasks.add(task);
+	}
+	
 	/**
 	 * Getter method to obtain the instance of ObjectFactory initialized in the private constructor of the library.
 	 * 
@@ -139,80 +210,29 @@ public enum Neo4jLibrary
 		return obFactory;
 	}
 
-	private enum NodeType implements Label
+	/**
+	 * Describe the state of the indexes of the database: the ones created on nffgId to look up the nodes of a graph 
+	 * and the ones that back the uniqueness constraints.
+	 * 
+	 * @return the state of each index.
+	 * @see Indexes
+	 */
+	public Indexes getIndexes()
+	{
+		return NffgSchema.report(graphDB, obFactory);
+	}
+
+	enum NodeType implements Label
 	{
 		Referenceable, Pathable, Endpoint, NetworkFunction, NetworkElement, ConnectionPoint,
 		MonitoringParameter, Flowspace, Specification, CtrlInterface, Flowrules, Action, Nffg;
 	}
 	
-	private enum RelationType implements RelationshipType
+	enum RelationType implements RelationshipType
 	{
 		PathRelationship, InfoRelationship;
 	}
 	
-	private boolean getConstraintExist(Label nodeType, String property)
-	{
-		for (ConstraintDefinition cd : graphDB.schema().getConstraints(nodeType))
-		{
-			if (cd.getConstraintType() == ConstraintType.UNIQUENESS)
-			{
-				for (String propertyKey : cd.getPropertyKeys())
-				{
-					if (propertyKey.equals(property))
-					{
-						return true;
-					}
-				}
-			}
-		}
-		
-		return false;
-	}
-	
-	private void setConstraints()
-	{
-		Transaction tx = graphDB.beginTx();
-		
-		try
-		{
-			if (!getConstraintExist(NodeType.Nffg, "id")) {
-				graphDB.schema().constraintFor(NodeType.Nffg).assertPropertyIsUnique("id").create();
-			}
-			
-			if (!getConstraintExist(NodeType.Endpoint, "uniqueProp")) {
-				graphDB.schema().constraintFor(NodeType.Endpoint).assertPropertyIsUnique("uniqueProp").create();
-			}
-			
-			if (!getConstraintExist(NodeType.NetworkFunction, "uniqueProp")) {
-				graphDB.schema().constraintFor(NodeType.NetworkFunction).assertPropertyIsUnique("uniqueProp").create();
-			}
-			
-			if (!getConstraintExist(NodeType.NetworkElement, "uniqueProp")) {
-				graphDB.schema().constraintFor(NodeType.NetworkElement).assertPropertyIsUnique("uniqueProp").create();
-			}
-			
-			if (!getConstraintExist(NodeType.ConnectionPoint, "uniqueProp")) {
-				graphDB.schema().constraintFor(NodeType.ConnectionPoint).assertPropertyIsUnique("uniqueProp").create();
-			}
-			
-			if (!getConstraintExist(NodeType.CtrlInterface, "uniqueProp")) {
-				graphDB.schema().constraintFor(NodeType.CtrlInterface).assertPropertyIsUnique("uniqueProp").create();
-			}
-			
-			tx.success();
-		}
-		catch (Exception e)
-		{
-			tx.failure();
-			e.printStackTrace();
-		}
-		finally
-		{
-			tx.close();
-		}
-		
-	}
-	
 	private Node createUniqueNode(NodeType nodeLabel, String propertyName, Object propertyValue)
 	{
 		Transaction tx = graphDB.beginTx();
@@ -250,184 +270,6 @@ public enum Neo4jLibrary
 		}
 	}
 	
-	private void setMacHeadersInFlowspaceNode(Mac mac, Node fsNode)
-	{
-		if (mac != null)
-		{
-			if (mac.getSrc() != null) {
-				fsNode.setProperty("mac-src", mac.getSrc());
-			}
-			
-			if (mac.getDst() != null) {
-				fsNode.setProperty("mac-dst", mac.getDst());
-			}
-			
-			if (mac.getEthertype() != null)	{
-				fsNode.setProperty("mac-ethertype", mac.getEthertype().intValue());
-			}
-			
-			if (mac.getVlanId() != null) {
-				fsNode.setProperty("mac-vlanId", mac.getVlanId().intValue());
-			}
-			
-			if (mac.getVlanPcp() != null) {
-				fsNode.setProperty("mac-vlanPcp", mac.getVlanPcp().intValue());
-			}
-		}
-	}
-	
-	private Mac setMacHeadersInFlowspaceElement(Node fsNode)
-	{
-		Mac elMac = null;
-		
-		if (fsNode.hasProperty("mac-src") || fsNode.hasProperty("mac-dst") || fsNode.hasProperty("mac-vlanId") ||
-			fsNode.hasProperty("mac-vlanPcp") || fsNode.hasProperty("mac-ethertype"))
-		{
-			elMac = obFactory.createFlowrulesTypeFlowspaceMac();
-			
-			if (fsNode.hasProperty("mac-src")) {
-				elMac.setSrc((String) fsNode.getProperty("mac-src"));
-			}
-			
-			if (fsNode.hasProperty("mac-dst")) {
-				elMac.setDst((String) fsNode.getProperty("mac-dst"));
-			}
-			
-			if (fsNode.hasProperty("mac-ethertype")) {
-				elMac.setEthertype((Integer) fsNode.getProperty("mac-ethertype"));
-			}
-			
-			if (fsNode.hasProperty("mac-vlanId")) {
-				elMac.setVlanId((Integer) fsNode.getProperty("mac-vlanId"));
-			}
-			
-			if (fsNode.hasProperty("mac-vlanPcp")) {
-				elMac.setVlanPcp((Integer) fsNode.getProperty("mac-vlanPcp"));
-			}
-		}
-		
-		return elMac;
-	}
-	
-	private void setIpHeadersInFlowspaceNode(Ip ip, Node fsNode)
-	{
-		if (ip != null)
-		{
-			if (ip.getSrc() != null) {
-				fsNode.setProperty("ip-src", ip.getSrc());
-			}
-			
-			if (ip.getDst() != null) {
-				fsNode.setProperty("ip-dst", ip.getDst());
-			}
-			
-			if (ip.getIpProtocol() != null) {
-				fsNode.setProperty("ip-ipProtocol", ip.getIpProtocol().shortValue());
-			}
-			
-			if (ip.getTos() != null) {
-				fsNode.setProperty("ip-tos", ip.getTos().shortValue());
-			}
-		}
-	}
-	
-	private Ip setIpHeadersInFlowspaceElement(Node fsNode)
-	{
-		Ip elIp = null;
-		
-		if (fsNode.hasProperty("ip-src") || fsNode.hasProperty("ip-dst") ||
-			fsNode.hasProperty("ip-ipProtocol") || fsNode.hasProperty("ip-tos"))
-		{
-			elIp = obFactory.createFlowrulesTypeFlowspaceIp();
-			
-			if (fsNode.hasProperty("ip-src")) {
-				elIp.setSrc((String) fsNode.getProperty("ip-src"));
-			}
-			
-			if (fsNode.hasProperty("ip-dst")) {
-				elIp.setDst((String) fsNode.getProperty("ip-dst"));
-			}
-			
-			if (fsNode.hasProperty("ip-ipProtocol")) {
-				elIp.setIpProtocol((Short) fsNode.getProperty("ip-ipProtocol"));
-			}
-			
-			if (fsNode.hasProperty("ip-tos")) {
-				elIp.setTos((Short) fsNode.getProperty("ip-tos"));
-			}
-		}
-		
-		return elIp;
-	}
-	
-	private void setTcpHeadersInFlowspaceNode(Tcp tcp, Node fsNode)
-	{
-		if (tcp != null)
-		{
-			if (tcp.getSrc() != null) {
-				fsNode.setProperty("tcp-src", tcp.getSrc());
-			}
-			
-			if (tcp.getDst() != null) {
-				fsNode.setProperty("tcp-dst", tcp.getDst());
-			}
-		}
-	}
-	
-	private Tcp setTcpHeadersInFlowspaceElement(Node fsNode)
-	{
-		Tcp elTcp = null;
-		
-		if (fsNode.hasProperty("tcp-src") || fsNode.hasProperty("tcp-dst"))
-		{
-			elTcp = obFactory.createFlowrulesTypeFlowspaceTcp();
-			
-			if (fsNode.hasProperty("tcp-src")) {
-				elTcp.setSrc((Integer) fsNode.getProperty("tcp-src"));
-			}
-			
-			if (fsNode.hasProperty("tcp-dst")) {
-				elTcp.setDst((Integer) fsNode.getProperty("tcp-dst"));
-			}
-		}
-		
-		return elTcp;
-	}
-	
-	private void setUdpHeadersInFlowspaceNode(Udp udp, Node fsNode)
-	{
-		if (udp != null)
-		{
-			if (udp.getSrc() != null) {
-				fsNode.setProperty("udp-src", udp.getSrc());
-			}
-			
-			if (udp.getDst() != null) {
-				fsNode.setProperty("udp-dst", udp.getDst());
-			}
-		}
-	}
-	
-	private Udp setUdpHeadersInFlowspaceElement(Node fsNode)
-	{
-		Udp elUdp = null;
-		
-		if (fsNode.hasProperty("udp-src") || fsNode.hasProperty("udp-dst"))
-		{
-			elUdp = obFactory.createFlowrulesTypeFlowspaceUdp();
-			
-			if (fsNode.hasProperty("udp-src")) {
-				elUdp.setSrc((Integer) fsNode.getProperty("udp-src"));
-			}
-			
-			if (fsNode.hasProperty("udp-dst")) {
-				elUdp.setDst((Integer) fsNode.getProperty("udp-dst"));
-			}
-		}
-		
-		return elUdp;
-	}
-	
 	private void setMonitoringParametersNode(MonParamsType mpt, Node tmpNode, String nffgId)
 	{		
 		if (!mpt.getParameter().isEmpty())
@@ -469,6 +311,10 @@ public enum Neo4jLibrary
 	
 	/**
 	 * Save a new graph into the Neo4j database.
+	 * The graph is written by the batched engine (a single transaction of core API calls) unless 
+	 * the property nffgWriteMode of the server is set to 'cypher'.
+	 * If the property groupCommitWindowMs is positive, the graphs created concurrently within that window 
+	 * (at most groupCommitMaxGraphs) are committed by a single transaction, but each one is still created or refused on its own.
 	 *
 	 * @param graph the Network Function Forwarding Graph we want to save into the database.
 	 * @return the id assigned to the graph into the database.
@@ -479,19 +325,29 @@ public enum Neo4jLibrary
 	 * @see MyConstraintViolationException
 	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
 	 */
-	public synchronized Integer createNffg(Nffg graph) throws Exception
+	public Integer createNffg(Nffg graph) throws Exception
 	{
-		SpecType st; EpType.Flowspace efs;
+		if (writeCoalescer != null)
+		{
+			return writeCoalescer.write(graph);
+		}
+		
+		if (batchedWrites)
+		{
+			return createNffgBatched(graph);
+		}
+		
+		EpType.Flowspace efs; Map<String, Object> specProperties;
 		FlowrulesType.Flowspace ffs; String[] tmpArray;
 		Node nffgNode, epNode, nfNode, cpNode, neNode, fsNode, spNode, ciNode, frNode, acNode, tmpNode;
 		Set<String> refs = new HashSet<String>();
-		String nffgId; int tmpId = 0;
+		String nffgId; int tmpId = idAllocator.allocate(graph.getId());
+		boolean written = false;
 		
 		Transaction tx = graphDB.beginTx();
 		
 		try
 		{
-			tmpId = getValidNffgId(graph.getId());
 			nffgId = "nffg_" + tmpId;			
 			nffgNode = createUniqueNode(NodeType.Nffg, "id", nffgId);
 			
@@ -505,6 +361,9 @@ public enum Neo4jLibrary
 				nffgNode.setProperty("version", graph.getVersion());
 			}
 			
+			nffgNode.setProperty(NffgWriter.REVISION, NffgWriter.newRevision());
+			nffgNode.setProperty(NffgStats.CREATED, System.currentTimeMillis());
+			NffgStats.of(graph, nffgId).store(nffgNode);
 			setMonitoringParametersNode(graph.getMonitoringParameters(), nffgNode, nffgId);
 			
 			for (EpType ept : graph.getEndpoints().getEndpoint())
@@ -540,10 +399,10 @@ public enum Neo4jLibrary
 						fsNode.setProperty("ingPhysPort", efs.getIngPhysPort());
 					}
 						
-					setMacHeadersInFlowspaceNode(efs.getMac(), fsNode);
-					setIpHeadersInFlowspaceNode(efs.getIp(), fsNode);
-					setTcpHeadersInFlowspaceNode(efs.getTcp(), fsNode);
-					setUdpHeadersInFlowspaceNode(efs.getUdp(), fsNode);
+					PropertyMapper.MAC.write(efs.getMac(), fsNode);
+					PropertyMapper.IP.write(efs.getIp(), fsNode);
+					PropertyMapper.TCP.write(efs.getTcp(), fsNode);
+					PropertyMapper.UDP.write(efs.getUdp(), fsNode);
 				}
 			}
 			
@@ -563,56 +422,17 @@ public enum Neo4jLibrary
 				nfNode.setProperty("nffgId", nffgId);
 				nfNode.setProperty("id", nft.getId());
 				setMonitoringParametersNode(nft.getMonitoringParameters(), nfNode, nffgId);
-				st = nft.getSpecification();
+				specProperties = new HashMap<String, Object>();
+				PropertyMapper.SPECIFICATION.write(nft.getSpecification(), specProperties);
 					
-				if (!st.getDeployment().getType().equals("N.A.") || !st.getImage().getUri().equals("N.A.") ||
-					!st.getCpu().getModel().equals("N.A.") || !st.getCpu().getArchitecture().equals("N.A.") ||
-					st.getCpu().getNumCores() != 1 || !st.getCpu().getClockSpeed().equals("N.A.") ||
-					!st.getMemory().getType().equals("N.A.") || !st.getMemory().getSize().equals("N.A.") ||
-					!st.getStorage().getType().equals("N.A.") || !st.getStorage().getSize().equals("N.A."))
+				if (!specProperties.isEmpty())
 				{
 					spNode = graphDB.createNode(NodeType.Specification);
 					spNode.setProperty("nffgId", nffgId);
 					nfNode.createRelationshipTo(spNode, RelationType.InfoRelationship);
 					
-					if (!st.getDeployment().getType().equals("N.A.")) {
-						spNode.setProperty("deployment", st.getDeployment().getType());
-					}
-						
-					if (!st.getImage().getUri().equals("N.A.")) {
-						spNode.setProperty("image", st.getImage().getUri());
-					}
-						
-					if (!st.getCpu().getModel().equals("N.A.")) {
-						spNode.setProperty("cpu-model", st.getCpu().getModel());
-					}
-						
-					if (!st.getCpu().getArchitecture().equals("N.A.")) {
-						spNode.setProperty("cpu-architecture", st.getCpu().getArchitecture());
-					}
-						
-					if (st.getCpu().getNumCores() != 1) {
-						spNode.setProperty("cpu-numCores", st.getCpu().getNumCores());
-					}
-						
-					if (!st.getCpu().getClockSpeed().equals("N.A.")) {
-						spNode.setProperty("cpu-clockSpeed", st.getCpu().getClockSpeed());
-					}
-						
-					if (!st.getMemory().getType().equals("N.A.")) {
-						spNode.setProperty("mem-type", st.getMemory().getType());
-					}
-						
-					if (!st.getMemory().getSize().equals("N.A.")) {
-						spNode.setProperty("mem-size", st.getMemory().getSize());
-					}
-						
-					if (!st.getStorage().getType().equals("N.A.")) {
-						spNode.setProperty("sto-type", st.getStorage().getType());
-					}
-						
-					if (!st.getStorage().getSize().equals("N.A.")) {
-						spNode.setProperty("sto-size", st.getStorage().getSize());
+					for (Map.Entry<String, Object> e : specProperties.entrySet()) {
+						spNode.setProperty(e.getKey(), e.getValue());
 					}
 				}
 					
@@ -761,21 +581,70 @@ public enum Neo4jLibrary
 								fsNode.setProperty("ingPort", ffs.getIngPort());
 							}
 								
-							setMacHeadersInFlowspaceNode(ffs.getMac(), fsNode);
-							setIpHeadersInFlowspaceNode(ffs.getIp(), fsNode);
-							setTcpHeadersInFlowspaceNode(ffs.getTcp(), fsNode);
-							setUdpHeadersInFlowspaceNode(ffs.getUdp(), fsNode);
+							PropertyMapper.MAC.write(ffs.getMac(), fsNode);
+							PropertyMapper.IP.write(ffs.getIp(), fsNode);
+							PropertyMapper.TCP.write(ffs.getTcp(), fsNode);
+							PropertyMapper.UDP.write(ffs.getUdp(), fsNode);
 						}
 					}
 				}
 			}
 			
 			tx.success();
+			written = true;
+			return tmpId;
+		}
+		finally
+		{
+			closeWriteTransaction(tx, written, tmpId);
+		}
+	}
+	
+	private Integer createNffgBatched(Nffg graph) throws Exception
+	{
+		NffgWriter.validate(graph);
+		int tmpId = idAllocator.allocate(graph.getId());
+		boolean written = false;
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			nffgWriter.write(graph, "nffg_" + tmpId);
+			tx.success();
+			written = true;
+			
 			return tmpId;
 		}
 		finally
+		{
+			closeWriteTransaction(tx, written, tmpId);
+		}
+	}
+	
+	/**
+	 * Closes the transaction that writes some new graphs: unless the transaction is committed, 
+	 * the ids allocated to the graphs are released, otherwise their cached representations are invalidated.
+	 */
+	private void closeWriteTransaction(Transaction tx, boolean written, Integer... ids)
+	{
+		boolean committed = false;
+		
+		try
 		{
 			tx.close();
+			committed = written;
+		}
+		finally
+		{
+			for (int id : ids)
+			{
+				if (committed) {
+					responseCache.invalidate("nffg_" + id);
+				}
+				else {
+					idAllocator.release(id);
+				}
+			}
 		}
 	}
 	
@@ -796,34 +665,317 @@ public enum Neo4jLibrary
 			createNffg(nt);
 		}
 	}
-	
-	private EpCpType getEpCp(EpsCpsType epscps, Node frNode)
+
+	/**
+	 * Outcome of the creation of a graph that belongs to a batch: 
+	 * the id assigned to the graph, or the error that prevented its creation.
+	 */
+	public static class CreationResult
 	{
-		for (EpCpType epcp : epscps.getEpCp())
+		private final Integer id;
+		private final Exception error;
+		
+		CreationResult(Integer id, Exception error)
 		{
-			if (epcp.getIdRef().equals(frNode.getProperty("epcp-idRef")))
-			{
-				return epcp;
-			}	
+			this.id = id;
+			this.error = error;
 		}
 		
-		EpCpType tmp = obFactory.createEpCpType();
-		tmp.setIdRef((String) frNode.getProperty("epcp-idRef"));
-		epscps.getEpCp().add(tmp);
+		/**
+		 * @return the id assigned to the graph, or null if the graph hasn't been created.
+		 */
+		public Integer getId()
+		{
+			return id;
+		}
 		
-		return tmp;
+		/**
+		 * @return the error that prevented the creation of the graph, or null if the graph has been created.
+		 */
+		public Exception getError()
+		{
+			return error;
+		}
 	}
 	
-	private List<Integer> getAllNffgIds()
+	/**
+	 * Checks each graph of a batch before it's saved, in addition to the checks of the library.
+	 */
+	public interface GraphValidator
 	{
-		String id;
-		List<Integer> ids;
-		Transaction tx = graphDB.beginTx();
+		/**
+		 * @param graph the graph to check.
+		 * @throws MyGenericException if the graph can't be saved, with the status to report for it.
+		 */
+		void validate(Nffg graph) throws MyGenericException;
+	}
+	
+	/**
+	 * Save into the Neo4j database a batch of graphs, reporting the outcome of each one instead of stopping at the first error.
+	 * 
+	 * @param graphs the graphs we want to save into the database.
+	 * @param chunkSize the number of graphs committed by each transaction.
+	 * @return the outcome of the creation of each graph, in the same order of the graphs.
+	 * @see #createNffgs(List, int, GraphValidator)
+	 */
+	public List<CreationResult> createNffgs(List<Nffg> graphs, int chunkSize)
+	{
+		return createNffgs(graphs, chunkSize, null);
+	}
+	
+	/**
+	 * Save into the Neo4j database a batch of graphs, reporting the outcome of each one instead of stopping at the first error.
+	 * The graphs are taken in chunks: the graphs of a chunk are validated in memory, then the valid ones are written 
+	 * by the batched engine and committed together. If the commit of a chunk fails, its graphs are saved again 
+	 * one per transaction, so that the error is reported only for the graph that caused it.
+	 * 
+	 * @param graphs the graphs we want to save into the database.
+	 * @param chunkSize the number of graphs committed by each transaction.
+	 * @param validator the additional checks of each graph, or null.
+	 * @return the outcome of the creation of each graph, in the same order of the graphs.
+	 * @see Nffg
+	 * @see CreationResult
+	 * @see GraphValidator
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/util/List.html">List</a>
+	 */
+	public List<CreationResult> createNffgs(List<Nffg> graphs, int chunkSize, GraphValidator validator)
+	{
+		List<CreationResult> results = new ArrayList<CreationResult>(graphs.size());
 		
-		try
-		{	
-			ids = new ArrayList<Integer>();
-			ResourceIterator<Node> nodes = graphDB.findNodes(NodeType.Nffg);
+		for (int from = 0; from < graphs.size(); from += chunkSize)
+		{
+			results.addAll(createChunk(graphs.subList(from, Math.min(from + chunkSize, graphs.size())), validator));
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Save into the Neo4j database the graphs of a XML nffg-set document, reading it as a stream: 
+	 * the graphs are unmarshalled one chunk at a time, so the whole document is never kept in memory, 
+	 * and each chunk is saved as by {@link #createNffgs(List, int, GraphValidator)}. 
+	 * If the document stops being readable, the outcome of the graph that can't be read is its error and 
+	 * the reading stops there, while the graphs of the previous chunks remain saved and are reported as such.
+	 * 
+	 * @param in the nffg-set document.
+	 * @param chunkSize the number of graphs committed by each transaction.
+	 * @param validator the additional checks of each graph, or null.
+	 * @return the outcome of the creation of each graph read, in document order.
+	 * @throws MyConstraintViolationException if the document can't be read before its first graph.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see CreationResult
+	 * @see GraphValidator
+	 * @see MyConstraintViolationException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/io/InputStream.html">InputStream</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public List<CreationResult> createNffgs(InputStream in, int chunkSize, GraphValidator validator) throws Exception
+	{
+		List<CreationResult> results = new ArrayList<CreationResult>();
+		List<Nffg> chunk = new ArrayList<Nffg>();
+		NffgSetReader reader;
+		
+		try
+		{
+			reader = new NffgSetReader(in);
+		}
+		catch (XMLStreamException xse)
+		{
+			throw new MyConstraintViolationException("The document can't be read: " + xse.getMessage());
+		}
+		
+		try
+		{
+			boolean more = true;
+			
+			while (more)
+			{
+				CreationResult unreadable = null;
+				
+				try
+				{
+					Nffg graph = reader.read();
+					more = (graph != null);
+					
+					if (more) {
+						chunk.add(graph);
+					}
+				}
+				catch (JAXBException | XMLStreamException e)
+				{
+					String cause = (e.getMessage() != null || e.getCause() == null) ? e.getMessage() : e.getCause().getMessage();
+					
+					// Nothing has been created yet, then the whole document is rejected.
+					if (results.isEmpty() && chunk.isEmpty()) {
+						throw new MyConstraintViolationException("The document can't be read: " + cause);
+					}
+					
+					unreadable = new CreationResult(null, new MyConstraintViolationException("The graph can't be read: " + cause));
+					more = false;
+				}
+				
+				if (chunk.size() == chunkSize || (!more && !chunk.isEmpty()))
+				{
+					results.addAll(createChunk(chunk, validator));
+					chunk.clear();
+				}
+				
+				if (unreadable != null) {
+					results.add(unreadable);
+				}
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		
+		return results;
+	}
+	
+	private List<CreationResult> createChunk(List<Nffg> graphs, GraphValidator validator)
+	{
+		CreationResult[] results = new CreationResult[graphs.size()];
+		List<Integer> indexes = new ArrayList<Integer>();
+		List<Integer> ids = new ArrayList<Integer>();
+		
+		for (int i = 0; i < graphs.size(); i++)
+		{
+			try
+			{
+				if (validator != null) {
+					validator.validate(graphs.get(i));
+				}
+				
+				NffgWriter.validate(graphs.get(i));
+				indexes.add(i);
+			}
+			catch (MyGenericException mge)
+			{
+				results[i] = new CreationResult(null, mge);
+			}
+		}
+		
+		try
+		{
+			boolean written = false;
+			Transaction tx = graphDB.beginTx();
+			
+			try
+			{
+				for (int index : indexes)
+				{
+					ids.add(idAllocator.allocate(graphs.get(index).getId()));
+					nffgWriter.write(graphs.get(index), "nffg_" + ids.get(ids.size() - 1));
+				}
+				
+				tx.success();
+				written = true;
+			}
+			finally
+			{
+				closeWriteTransaction(tx, written, ids.toArray(new Integer[ids.size()]));
+			}
+			
+			for (int i = 0; i < indexes.size(); i++)
+			{
+				results[indexes.get(i)] = new CreationResult(ids.get(i), null);
+			}
+		}
+		catch (Exception e)
+		{
+			for (int index : indexes)
+			{
+				try
+				{
+					results[index] = new CreationResult(createNffgBatched(graphs.get(index)), null);
+				}
+				catch (Exception ge)
+				{
+					results[index] = new CreationResult(null, ge);
+				}
+			}
+		}
+		
+		return Arrays.asList(results);
+	}
+	
+	private FlowrulesType getFlowrulesElement(Node frNode)
+	{
+		Node otherNode;
+		FlowrulesType frt = obFactory.createFlowrulesType();
+		FlowrulesType.Flowspace fft = obFactory.createFlowrulesTypeFlowspace();
+		ActionsType acts = obFactory.createActionsType();
+		ActionType act;
+		Map<String, Object> properties;
+		
+		for (Relationship r : frNode.getRelationships(Direction.OUTGOING))
+		{
+			otherNode = r.getOtherNode(frNode);
+			
+			if (otherNode.hasLabel(NodeType.Action))
+			{
+				act = obFactory.createActionType();
+				act.setType(ActionEnumType.fromValue((String) otherNode.getProperty("type")));
+				
+				if (otherNode.hasProperty("port")) {
+					act.setPort((String) otherNode.getProperty("port"));
+				}
+				
+				acts.getAction().add(act);
+			}
+			else
+			{
+				properties = otherNode.getAllProperties();
+				fft.setIngPort((String) properties.get("ingPort"));
+				fft.setMac(PropertyMapper.MAC.read(properties));
+				fft.setIp(PropertyMapper.IP.read(properties));
+				fft.setTcp(PropertyMapper.TCP.read(properties));
+				fft.setUdp(PropertyMapper.UDP.read(properties));
+			}
+		}
+		
+		frt.setFlowspace(fft);
+		frt.setActions(acts);
+		
+		return frt;
+	}
+	
+	private EpCpType getEpCp(EpsCpsType epscps, Node frNode)
+	{
+		for (EpCpType epcp : epscps.getEpCp())
+		{
+			if (epcp.getIdRef().equals(frNode.getProperty("epcp-idRef")))
+			{
+				return epcp;
+			}	
+		}
+		
+		EpCpType tmp = obFactory.createEpCpType();
+		tmp.setIdRef((String) frNode.getProperty("epcp-idRef"));
+		epscps.getEpCp().add(tmp);
+		
+		return tmp;
+	}
+	
+	/**
+	 * Return the ids of all graphs saved into the database, without loading the graphs.
+	 * 
+	 * @return the numeric part of the ids, in ascending order.
+	 * @throws Exception in case of any unpredictable errors.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/util/List.html">List</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public List<Integer> getAllNffgIds() throws Exception
+	{
+		String id;
+		List<Integer> ids;
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{	
+			ids = new ArrayList<Integer>();
+			ResourceIterator<Node> nodes = graphDB.findNodes(NodeType.Nffg);
 			
 			while (nodes.hasNext())
 			{
@@ -852,42 +1004,113 @@ public enum Neo4jLibrary
 		}
 	}
 	
-	private int getValidNffgId(String proposedId)
+	/**
+	 * Return the ids of the graphs that follow a given one, in ascending order, without loading the graphs. 
+	 * The ids are taken from the bitmap of the ids in use, starting from the given one, 
+	 * so the cost of a page doesn't depend on how many graphs precede it.
+	 * 
+	 * @param after the numeric part of the id to start after (-1 to start from the first graph).
+	 * @param limit the max number of ids to return.
+	 * @return the numeric part of the ids.
+	 * @throws Exception in case of any unpredictable errors.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/util/List.html">List</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public List<Integer> getNffgIdsAfter(int after, int limit) throws Exception
 	{
-		int propId;
-		List<Integer> ids = getAllNffgIds();
+		List<Integer> ids = new ArrayList<Integer>();
+		Transaction tx = graphDB.beginTx();
 		
-		if (proposedId != null)
+		try
 		{
-			propId = Integer.parseInt(proposedId.substring(new String("nffg_").length()));
-			
-			if (!ids.contains(propId))
+			while (ids.size() < limit)
 			{
-				return propId;
+				List<Integer> candidates = idAllocator.usedAfter(after, limit - ids.size());
+				
+				if (candidates.isEmpty()) {
+					break;
+				}
+				
+				// An id is in use also while the graph is being written, or deleted.
+				for (int id : candidates)
+				{
+					if (graphDB.findNode(NodeType.Nffg, "id", "nffg_" + id) != null) {
+						ids.add(id);
+					}
+					
+					after = id;
+				}
 			}
+			
+			tx.success();
+		}
+		finally
+		{
+			tx.close();
 		}
 		
-		if (!ids.isEmpty())
+		return ids;
+	}
+	
+	/**
+	 * Summarize some graphs: for each one its id, version, time of creation and the statistics recorded 
+	 * when it was written (see {@link NffgStats}). Only the Nffg nodes are read, unless a graph has been saved 
+	 * by a version of the service that didn't record the statistics: the nodes of such a graph are visited to count them.
+	 * 
+	 * @param ids the numeric part of the ids of the graphs.
+	 * @return the summaries of the graphs that exist, in the same order of their ids.
+	 * @throws Exception in case of any unpredictable errors.
+	 * @see Summaries
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/util/List.html">List</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public Summaries summarizeNffgs(List<Integer> ids) throws Exception
+	{
+		Summaries summaries = obFactory.createSummaries();
+		Transaction tx = graphDB.beginTx();
+		
+		try
 		{
-			if (ids.get(ids.size() - 1) == ids.size() - 1)
+			for (Integer id : ids)
 			{
-				return ids.size();
-			}
-			
-			for (int i = 0; i < ids.get(ids.size() - 1); i++)
-			{
-				if (!ids.contains(i))
-				{
-					return i;
+				Node nffgNode = graphDB.findNode(NodeType.Nffg, "id", "nffg_" + id);
+				
+				if (nffgNode == null) {
+					continue;
+				}
+				
+				Summaries.Graph summary = obFactory.createSummariesGraph();
+				summary.setId((String) nffgNode.getProperty("id"));
+				summary.setVersion((String) nffgNode.getProperty("version", null));
+				
+				if (nffgNode.hasProperty(NffgStats.CREATED)) {
+					summary.setCreated(NffgJobQueue.toCalendar((Long) nffgNode.getProperty(NffgStats.CREATED)));
 				}
+				
+				NffgStats stats = NffgStats.load(nffgNode);
+				
+				if (stats == null) {
+					stats = NffgStats.count(nffgNode);
+				}
+				
+				stats.toSummary(summary);
+				summaries.getGraph().add(summary);
 			}
+			
+			tx.success();
+		}
+		finally
+		{
+			tx.close();
 		}
 		
-		return 0;
+		return summaries;
 	}
 	
 	/**
 	 * Load some graphs from Neo4j database and create with them an instance of NffgSet.
+	 * The graphs are read in parallel by a fork-join pool whose size is given by the property retrieveParallelism 
+	 * (by default the number of processors, 1 reads them sequentially); the order of the result is the same anyway.
 	 * 
 	 * @param ids array whose length is variable that contains the graphIds we want to retrieve.
 	 * @return the instance of NffgSet that contains the graphs specified, 
@@ -899,328 +1122,1141 @@ public enum Neo4jLibrary
 	 */
 	public NffgSet retrieveNffgs(String ... ids) throws Exception
 	{
-		Nffg graph;
-		NffgSet graphs = obFactory.createNffgSet();
+		return retrieveNffgs(NffgField.ALL, ids);
+	}
+	
+	/**
+	 * Load some graphs like {@link #retrieveNffgs(String...)}, but only the requested sections of them.
+	 * 
+	 * @param fields the sections of the graphs to read.
+	 * @param ids array whose length is variable that contains the graphIds we want to retrieve.
+	 * @return the instance of NffgSet that contains the graphs specified, 
+	 * or all graphs if the first element of array parameter is equal to 'all'. 
+	 * @throws Exception in case of any unpredictable errors.
+	 * @see NffgField
+	 * @see NffgSet
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/util/Set.html">Set</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public NffgSet retrieveNffgs(Set<NffgField> fields, String ... ids) throws Exception
+	{
+		List<String> nffgIds = new ArrayList<String>();
 		
 		if (ids[0].equalsIgnoreCase("all"))
 		{
 			for (Integer nffgId : getAllNffgIds())
 			{
-				graph = retrieveNffg("nffg_" + nffgId);
-				
-				if (graph != null) 
-				{
-					graphs.getNffg().add(graph);
-				}
+				nffgIds.add("nffg_" + nffgId);
 			}
 		}
 		else
 		{
 			for (int i = 0; i < ids.length; i++)
 			{
-				graph = retrieveNffg("nffg_" + ids[i]);
-				
-				if (graph != null) 
-				{
-					graphs.getNffg().add(graph);
-				}
+				nffgIds.add("nffg_" + ids[i]);
 			}
 		}
 		
-		return graphs;
+		return retrieveNffgs(nffgIds, fields, retrievers);
 	}
 	
 	/**
-	 * Load the graph specified by parameter id from Neo4j database and create with it an instance of Nffg.
+	 * Load some graphs, in the given order. Without a pool the graphs are read one after the other; 
+	 * otherwise the list is split into chunks of graphs that are read by the threads of the pool, 
+	 * each chunk in its own transaction.
 	 * 
-	 * @param id the graphId of the graph we want to retrieve.
-	 * @return the instance of Nffg with the graph retrieved or null 
-	 * if doesn't exist a graph whose id is equal to the passed one.
-	 * @throws Exception in case of any unpredictable errors.
-	 * @see Nffg
-	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
-	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 * @param ids the ids of the graphs.
+	 * @param fields the sections of the graphs to read.
+	 * @param pool the pool that reads the graphs, or null.
+	 * @return the graphs that exist, in the same order of their ids.
 	 */
-	public Nffg retrieveNffg(String id) throws Exception
+	NffgSet retrieveNffgs(List<String> ids, Set<NffgField> fields, ForkJoinPool pool)
 	{
-		Relationship tmpRel;
-		EpType.Flowspace eft; EpType ept; NfType nft;
-		SpecType spt; CiType cit; CtrlInterfacesType cits;
-		Deployment dt; Image it; Cpu cpu; Memory mem;
-		Storage sto; String[] tmpArray; Attributes atts;
-		Attribute att; CpointsType cpts; CpType cpt; 
-		PortType port; MonParamsType mpts; NeType net;
-		EpsCpsType refs; EpCpType ref; FlowrulesType frt; 
-		ActionsType acts; ActionType act; FlowrulesType.Flowspace fft; 
-		Node otherNode, otherNode2, nffgNode, epNode, nfNode, neNode, mpNode;
-		Nffg graph = obFactory.createNffg();
-		Transaction tx = graphDB.beginTx();
+		NffgSet graphs = obFactory.createNffgSet();
+		Nffg[] results = new Nffg[ids.size()];
+		RetrieveTask task = new RetrieveTask(ids, fields, results, 0, ids.size());
 		
-		try
-		{	
-			nffgNode = graphDB.findNode(NodeType.Nffg, "id", id);
-			
-			if (nffgNode == null) 
+		if (pool == null) {
+			task.compute();
+		}
+		else {
+			pool.invoke(task);
+		}
+		
+		for (Nffg graph : results)
+		{
+			if (graph != null) 
 			{
-				tx.failure();
-				return null;
+				graphs.getNffg().add(graph);
 			}
-			
-			graph.setId((String) nffgNode.getProperty("id"));
-					
-			if (nffgNode.hasProperty("version")) {
-				graph.setVersion((String) nffgNode.getProperty("version"));
+		}
+		
+		return graphs;
+	}
+	
+	/**
+	 * Reads the graphs whose ids are in a range of the list, splitting the range in halves 
+	 * until it is not longer than RETRIEVE_CHUNK. Each graph is stored at the same index of its id, 
+	 * so the order of the result doesn't depend on the scheduling.
+	 */
+	private class RetrieveTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final List<String> ids;
+		private final Set<NffgField> fields;
+		private final Nffg[] results;
+		private final int from, to;
+		
+		RetrieveTask(List<String> ids, Set<NffgField> fields, Nffg[] results, int from, int to)
+		{
+			this.ids = ids;
+			this.fields = fields;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from > RETRIEVE_CHUNK && inForkJoinPool())
+			{
+				int middle = (from + to) >>> 1;
+				invokeAll(new RetrieveTask(ids, fields, results, from, middle), new RetrieveTask(ids, fields, results, middle, to));
+				return;
 			}
 			
-			ResourceIterator<Node> eps = graphDB.findNodes(NodeType.Endpoint, "nffgId", id);
-			graph.setEndpoints(obFactory.createEpointsType());
-					
-			while (eps.hasNext())
+			Transaction tx = graphDB.beginTx();
+			
+			try
 			{
-				epNode = eps.next();
-				ept = obFactory.createEpType();
-				ept.setId((String) epNode.getProperty("id"));
-				tmpRel = epNode.getSingleRelationship(RelationType.InfoRelationship, Direction.OUTGOING);
-				eft = obFactory.createEpTypeFlowspace();
-				
-				if (tmpRel != null)
+				for (int i = from; i < to; i++)
 				{
-					otherNode = tmpRel.getOtherNode(epNode);
-					
-					if (otherNode.hasProperty("ingPhysPort")) {
-						eft.setIngPhysPort((String) otherNode.getProperty("ingPhysPort"));
-					}
-					
-					if (otherNode.hasProperty("nodeId")) {
-						eft.setNodeId((String) otherNode.getProperty("nodeId"));
-					}
-					
-					eft.setMac(setMacHeadersInFlowspaceElement(otherNode));
-					eft.setIp(setIpHeadersInFlowspaceElement(otherNode));
-					eft.setTcp(setTcpHeadersInFlowspaceElement(otherNode));
-					eft.setUdp(setUdpHeadersInFlowspaceElement(otherNode));
+					results[i] = readNffg(ids.get(i), fields);
 				}
 				
-				ept.setFlowspace(eft);
-				graph.getEndpoints().getEndpoint().add(ept);
+				tx.success();
 			}
-			
+			finally
+			{
+				tx.close();
+			}
+		}
+	}
+	
+	/**
+	 * Return the revision of a graph, that changes every time the graph is changed. 
+	 * Only the Nffg node is read, so the revision can be compared with the one known by a client 
+	 * without loading the graph.
+	 * 
+	 * @param id the graphId of the graph.
+	 * @return the revision of the graph, or null if doesn't exist a graph whose id is equal to the passed one 
+	 * (or if the graph has been saved by a version of the service that didn't keep the revisions).
+	 * @throws Exception in case of any unpredictable errors.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public Long getRevision(String id) throws Exception
+	{
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			Node nffgNode = graphDB.findNode(NodeType.Nffg, "id", id);
+			tx.success();
+			
+			return (nffgNode == null) ? null : (Long) nffgNode.getProperty(NffgWriter.REVISION, null);
+		}
+		finally
+		{
+			tx.close();
+		}
+	}
+	
+	/**
+	 * Load the graph specified by parameter id from Neo4j database and create with it an instance of Nffg.
+	 * By default the graph is read by a single walk of the InfoRelationships that start from its Nffg node, 
+	 * so the cost depends only on the size of the graph; if the property nffgReadMode of the server is set to 'scan', 
+	 * its elements are looked up by label and nffgId instead.
+	 * 
+	 * @param id the graphId of the graph we want to retrieve.
+	 * @return the instance of Nffg with the graph retrieved or null 
+	 * if doesn't exist a graph whose id is equal to the passed one.
+	 * @throws Exception in case of any unpredictable errors.
+	 * @see Nffg
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public Nffg retrieveNffg(String id) throws Exception
+	{
+		return retrieveNffg(id, NffgField.ALL);
+	}
+	
+	/**
+	 * Load only the requested sections of a graph: the nodes of the other sections aren't read at all, 
+	 * so a graph whose bulk is in the flowrules of its network elements can be read cheaply without them.
+	 * 
+	 * @param id the graphId of the graph we want to retrieve.
+	 * @param fields the sections of the graph to read.
+	 * @return the instance of Nffg with the requested sections of the graph, or null 
+	 * if doesn't exist a graph whose id is equal to the passed one.
+	 * @throws Exception in case of any unpredictable errors.
+	 * @see NffgField
+	 * @see Nffg
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/util/Set.html">Set</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public Nffg retrieveNffg(String id, Set<NffgField> fields) throws Exception
+	{
+		Nffg graph;
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{	
+			graph = readNffg(id, fields);
+			tx.success();
+			
+			return graph;
+		}
+		finally
+		{
+			tx.close();
+		}
+	}
+	
+	/**
+	 * Reads a graph inside the transaction of the caller.
+	 */
+	private Nffg readNffg(String id, Set<NffgField> fields)
+	{
+		Node nffgNode = graphDB.findNode(NodeType.Nffg, "id", id);
+		
+		if (nffgNode == null) {
+			return null;
+		}
+		
+		return scanReads ? scanNffg(nffgNode, id, fields) : traverseNffg(nffgNode, fields);
+	}
+	
+	private Nffg createNffgElement(Node nffgNode, Set<NffgField> fields)
+	{
+		Nffg graph = obFactory.createNffg();
+		graph.setId((String) nffgNode.getProperty("id"));
+		
+		if (nffgNode.hasProperty("version")) {
+			graph.setVersion((String) nffgNode.getProperty("version"));
+		}
+		
+		if (fields.contains(NffgField.ENDPOINTS)) {
+			graph.setEndpoints(obFactory.createEpointsType());
+		}
+		
+		if (fields.contains(NffgField.NETWORK_FUNCTIONS)) {
+			graph.setNetworkFunctions(obFactory.createNfunctionsType());
+		}
+		
+		if (fields.contains(NffgField.NETWORK_ELEMENTS)) {
+			graph.setNetworkElements(obFactory.createNelementsType());
+		}
+		
+		if (fields.contains(NffgField.MONITORING_PARAMETERS)) {
+			graph.setMonitoringParameters(obFactory.createMonParamsType());
+		}
+		
+		return graph;
+	}
+	
+	/**
+	 * Reads a graph starting from its Nffg node: each node reached by an InfoRelationship is dispatched by label 
+	 * to the builder of the corresponding element. The nodes of the sections that aren't requested are skipped 
+	 * after reading their labels.
+	 */
+	private Nffg traverseNffg(Node nffgNode, Set<NffgField> fields)
+	{
+		Node otherNode;
+		Nffg graph = createNffgElement(nffgNode, fields);
+		
+		for (Relationship r : nffgNode.getRelationships(Direction.OUTGOING, RelationType.InfoRelationship))
+		{
+			otherNode = r.getEndNode();
+			
+			if (otherNode.hasLabel(NodeType.Endpoint)) 
+			{
+				if (graph.getEndpoints() != null) {
+					graph.getEndpoints().getEndpoint().add(getEndpointElement(otherNode));
+				}
+			}
+			else if (otherNode.hasLabel(NodeType.NetworkFunction)) 
+			{
+				if (graph.getNetworkFunctions() != null) {
+					graph.getNetworkFunctions().getNetworkFunction().add(getNetworkFunctionElement(otherNode, fields));
+				}
+			}
+			else if (otherNode.hasLabel(NodeType.NetworkElement)) 
+			{
+				if (graph.getNetworkElements() != null) {
+					graph.getNetworkElements().getNetworkElement().add(getNetworkElementElement(otherNode, fields));
+				}
+			}
+			else if (otherNode.hasLabel(NodeType.MonitoringParameter)) 
+			{
+				if (graph.getMonitoringParameters() != null) {
+					setMonitoringParametersElement(graph.getMonitoringParameters(), otherNode);
+				}
+			}
+		}
+		
+		return graph;
+	}
+	
+	/**
+	 * Reads a graph by looking up its elements by label and nffgId.
+	 */
+	private Nffg scanNffg(Node nffgNode, String id, Set<NffgField> fields)
+	{
+		Relationship tmpRel;
+		Node mpNode;
+		Nffg graph = createNffgElement(nffgNode, fields);
+		
+		if (graph.getEndpoints() != null)
+		{
+			ResourceIterator<Node> eps = graphDB.findNodes(NodeType.Endpoint, "nffgId", id);
+			
+			while (eps.hasNext())
+			{
+				graph.getEndpoints().getEndpoint().add(getEndpointElement(eps.next()));
+			}
+			
 			eps.close();
+		}
+		
+		if (graph.getNetworkFunctions() != null)
+		{
 			ResourceIterator<Node> nfs = graphDB.findNodes(NodeType.NetworkFunction, "nffgId", id);
-			graph.setNetworkFunctions(obFactory.createNfunctionsType());
 			
-			while (nfs.hasNext())
+			while (nfs.hasNext())
+			{
+				graph.getNetworkFunctions().getNetworkFunction().add(getNetworkFunctionElement(nfs.next(), fields));
+			}
+			
+			nfs.close();
+		}
+		
+		if (graph.getNetworkElements() != null)
+		{
+			ResourceIterator<Node> nes = graphDB.findNodes(NodeType.NetworkElement, "nffgId", id);
+			
+			while (nes.hasNext())
+			{
+				graph.getNetworkElements().getNetworkElement().add(getNetworkElementElement(nes.next(), fields));
+			}
+			
+			nes.close();
+		}
+		
+		if (graph.getMonitoringParameters() == null) {
+			return graph;
+		}
+		
+		ResourceIterator<Node> mps = graphDB.findNodes(NodeType.MonitoringParameter, "nffgId", id);
+		
+		while (mps.hasNext())
+		{
+			mpNode = mps.next();
+			tmpRel = mpNode.getSingleRelationship(RelationType.InfoRelationship, Direction.INCOMING);
+			
+			if (tmpRel.getOtherNode(mpNode).hasLabel(NodeType.Nffg))
+			{
+				setMonitoringParametersElement(graph.getMonitoringParameters(), mpNode);
+			}
+		}
+		
+		mps.close();
+		
+		return graph;
+	}
+	
+	private EpType getEndpointElement(Node epNode)
+	{
+		Map<String, Object> properties;
+		EpType ept = obFactory.createEpType();
+		ept.setId((String) epNode.getProperty("id"));
+		Relationship tmpRel = epNode.getSingleRelationship(RelationType.InfoRelationship, Direction.OUTGOING);
+		EpType.Flowspace eft = obFactory.createEpTypeFlowspace();
+		
+		if (tmpRel != null)
+		{
+			properties = tmpRel.getOtherNode(epNode).getAllProperties();
+			eft.setIngPhysPort((String) properties.get("ingPhysPort"));
+			eft.setNodeId((String) properties.get("nodeId"));
+			eft.setMac(PropertyMapper.MAC.read(properties));
+			eft.setIp(PropertyMapper.IP.read(properties));
+			eft.setTcp(PropertyMapper.TCP.read(properties));
+			eft.setUdp(PropertyMapper.UDP.read(properties));
+		}
+		
+		ept.setFlowspace(eft);
+		
+		return ept;
+	}
+	
+	private NfType getNetworkFunctionElement(Node nfNode, Set<NffgField> fields)
+	{
+		Node otherNode;
+		CiType cit; Attributes atts; Attribute att; String[] tmpArray;
+		CpType cpt; PortType port;
+		NfType nft = obFactory.createNfType();
+		nft.setId((String) nfNode.getProperty("id"));
+		nft.setFunctionalType((String) nfNode.getProperty("functionType"));
+		SpecType spt = fields.contains(NffgField.NF_SPECIFICATION) ? obFactory.createSpecType() : null;
+		CtrlInterfacesType cits = fields.contains(NffgField.NF_CONTROL_INTERFACES) ? obFactory.createCtrlInterfacesType() : null;
+		CpointsType cpts = fields.contains(NffgField.NF_CONNECTION_POINTS) ? obFactory.createCpointsType() : null;
+		MonParamsType mpts = fields.contains(NffgField.NF_MONITORING_PARAMETERS) ? obFactory.createMonParamsType() : null;
+		Set<Node> cpNodes = new HashSet<Node>();
+		
+		if (spt != null || cits != null || mpts != null)
+		{
+			for (Relationship r : nfNode.getRelationships(Direction.OUTGOING, RelationType.InfoRelationship))
+			{
+				otherNode = r.getOtherNode(nfNode);
+			
+				if (otherNode.hasLabel(NodeType.Specification))
+				{
+					if (spt == null) {
+						continue;
+					}
+				
+					spt.setCpu(obFactory.createSpecTypeCpu());
+					spt.setMemory(obFactory.createSpecTypeMemory());
+					spt.setStorage(obFactory.createSpecTypeStorage());
+					PropertyMapper.SPECIFICATION.read(otherNode.getAllProperties(), spt);
+				}
+				else if (otherNode.hasLabel(NodeType.CtrlInterface))
+				{
+					if (cits == null) {
+						continue;
+					}
+				
+					cit = obFactory.createCiType();
+					cit.setId((String) otherNode.getProperty("id"));
+					atts = obFactory.createCiTypeAttributes();
+					
+					if (otherNode.hasProperty("attributes")) 
+					{
+						tmpArray = (String[]) otherNode.getProperty("attributes");
+						
+						for (int i = 0; i < tmpArray.length; i++)
+						{
+							att = obFactory.createCiTypeAttributesAttribute();
+							att.setValue(tmpArray[i]);
+							atts.getAttribute().add(att);
+						}
+					}
+					
+					cit.setAttributes(atts);
+					cits.getControlInterface().add(cit);
+				}
+				else if (mpts != null)
+				{
+					setMonitoringParametersElement(mpts, otherNode);
+				}
+			}
+		}
+		
+		if (cpts != null)
+		{
+			for (Relationship r : nfNode.getRelationships(Direction.BOTH, RelationType.PathRelationship))
+			{
+				otherNode = r.getOtherNode(nfNode);
+			
+				// An inout connection point is linked to its network function by two relationships.
+				if (!cpNodes.add(otherNode)) {
+					continue;
+				}
+			
+				cpt = obFactory.createCpType();
+				cpt.setId((String) otherNode.getProperty("id"));
+				port = obFactory.createPortType();
+				port.setId((int) otherNode.getProperty("port-id"));
+				port.setDirection(PortDirEnumType.fromValue((String) otherNode.getProperty("port-direction")));
+			
+				if (otherNode.hasProperty("port-type")) {
+					port.setType((String) otherNode.getProperty("port-type"));
+				}
+			
+				cpt.setPort(port);
+				cpts.getConnectionPoint().add(cpt);
+			}
+		}
+		
+		nft.setSpecification(spt);
+		nft.setControlInterfaces(cits);
+		nft.setConnectionPoints(cpts);
+		nft.setMonitoringParameters(mpts);
+		
+		return nft;
+	}
+	
+	private NeType getNetworkElementElement(Node neNode, Set<NffgField> fields)
+	{
+		Node otherNode;
+		NeType net = obFactory.createNeType();
+		net.setId((String) neNode.getProperty("id"));
+		net.setType((String) neNode.getProperty("type"));
+		EpsCpsType refs = fields.contains(NffgField.NE_EPS_CPS) ? obFactory.createEpsCpsType() : null;
+		MonParamsType mpts = fields.contains(NffgField.NE_MONITORING_PARAMETERS) ? obFactory.createMonParamsType() : null;
+		
+		if (refs == null && mpts == null) {
+			return net;
+		}
+		
+		for (Relationship r : neNode.getRelationships(Direction.OUTGOING))
+		{
+			otherNode = r.getOtherNode(neNode);
+			
+			if (otherNode.hasLabel(NodeType.Flowrules))
+			{
+				if (refs != null) {
+					getEpCp(refs, otherNode).getFlowrules().add(getFlowrulesElement(otherNode));
+				}
+			}
+			else if (mpts != null)
+			{
+				setMonitoringParametersElement(mpts, otherNode);
+			}
+		}
+
+		net.setEpsCps(refs);
+		net.setMonitoringParameters(mpts);
+		
+		return net;
+	}
+	
+	private void deleteNode(Node n)
+	{
+		n.getAllProperties().clear();
+					
+		for (Relationship r : n.getRelationships())
+		{
+			r.getAllProperties().clear();
+			r.delete();
+		}
+					
+		n.delete();	
+	}
+	
+	/**
+	 * Delete some graphs from Neo4j database.
+	 * 
+	 * @param ids array whose length is variable that contains the ids of the graphs we want to delete 
+	 * (if the first element of the array is equal to 'all', all graphs saved into the database will be deleted).
+	 * @throws Exception in case of any unpredictable errors.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public void deleteNffgs(String ... ids) throws Exception
+	{		
+		Node graph;
+		List<Integer> deletedIds = new ArrayList<Integer>();
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			if (ids[0].equalsIgnoreCase("all"))
+			{
+				for (Node n : gcOperations.getAllNodes())
+				{
+					deleteNode(n);
+				}
+				
+				tx.success();
+			}
+			else
+			{
+				for (int i = 0; i < ids.length; i++)
+				{
+					graph = graphDB.findNode(NodeType.Nffg, "id", ids[i]);
+					
+					if (graph != null)
+					{
+						for (Node n : gcOperations.getAllNodes())
+						{
+							if (n.hasProperty("nffgId") && n.getProperty("nffgId").equals(ids[i]))
+							{
+								deleteNode(n);
+							}
+						}
+						
+						deleteNode(graph);
+						deletedIds.add(NffgIdAllocator.toNumber(ids[i]));
+					}	
+				}
+				
+				tx.success();
+			}
+		}
+		finally
+		{
+			tx.close();
+		}
+		
+		if (ids[0].equalsIgnoreCase("all"))
+		{
+			idAllocator.releaseAll();
+			responseCache.invalidateAll();
+			reachabilityIndex.invalidateAll();
+		}
+		
+		for (int id : deletedIds)
+		{
+			idAllocator.release(id);
+			responseCache.invalidate("nffg_" + id);
+			reachabilityIndex.invalidate("nffg_" + id);
+		}
+	}
+	
+	/**
+	 * Delete the graph whose id is equal to parameter id, from the Neo4j database.
+	 * 
+	 * @param id the id of the graph we want to delete.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see MyNotFoundException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public void deleteNffg(String id) throws Exception
+	{	
+		Node graph;
+		Lock lock = null;
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{				
+			graph = graphDB.findNode(NodeType.Nffg, "id", id);
+			
+			if (graph != null) 
+			{
+				lock = tx.acquireWriteLock(graph);
+			}
+			
+			graph = graphDB.findNode(NodeType.Nffg, "id", id);
+			
+			if (graph != null)
+			{
+				for (Node n : gcOperations.getAllNodes())
+				{
+					if (n.hasProperty("nffgId") && n.getProperty("nffgId").equals(id))
+					{
+						deleteNode(n);
+					}
+				}
+				
+				deleteNode(graph);
+				lock.release();
+				tx.success();
+			}
+			else
+			{
+				tx.failure();
+				throw new MyNotFoundException("There is no graph whose Id is '" + id.substring("nffg_".length()) + "'");
+			}	
+		}
+		finally
+		{
+			tx.close();
+		}
+		
+		idAllocator.release(NffgIdAllocator.toNumber(id));
+		responseCache.invalidate(id);
+		reachabilityIndex.invalidate(id);
+	}
+	
+	/**
+	 * Update the graph whose id is equal to parameter id with a new version of it.
+	 * Only the differences between the stored graph and the new version are written (see {@link NffgUpdater}), 
+	 * with a single transaction: the elements whose id is unchanged keep their nodes, and the graph keeps its id.
+	 * 
+	 * @param id the id of the graph we want to update.
+	 * @param graph the new version of the graph (its id, if any, is ignored).
+	 * @return the number of changes applied to the database.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one.
+	 * @throws MyConstraintViolationException if a validation error occurs during the process.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see Nffg
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public int updateNffg(String id, Nffg graph) throws Exception
+	{
+		int changes;
+		
+		NffgWriter.validate(graph);
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			Node nffgNode = lockNffg(tx, id);
+			NffgUpdater updater = new NffgUpdater(graphDB);
+			changes = updater.update(nffgNode, graph);
+			
+			if (changes > 0) 
+			{
+				nffgNode.setProperty(NffgWriter.REVISION, NffgWriter.newRevision());
+				updater.getStats().store(nffgNode);
+			}
+			
+			tx.success();
+		}
+		finally
+		{
+			tx.close();
+		}
+		
+		responseCache.invalidate(id);
+		
+		return changes;
+	}
+	
+	/**
+	 * Finds the Nffg node of a graph and acquires its write lock, so that the graph can't be changed or deleted 
+	 * by other transactions until the end of the given one.
+	 */
+	private Node lockNffg(Transaction tx, String id) throws MyNotFoundException
+	{
+		Node nffgNode = graphDB.findNode(NodeType.Nffg, "id", id);
+		
+		if (nffgNode != null)
+		{
+			tx.acquireWriteLock(nffgNode);
+			nffgNode = graphDB.findNode(NodeType.Nffg, "id", id);
+		}
+		
+		if (nffgNode == null)
+		{
+			tx.failure();
+			throw new MyNotFoundException("There is no graph whose Id is '" + id.substring("nffg_".length()) + "'");
+		}
+		
+		return nffgNode;
+	}
+	
+	private Node findNetworkElement(String nffgId, String neId) throws MyNotFoundException
+	{
+		Node neNode = graphDB.findNode(NodeType.NetworkElement, "uniqueProp", nffgId + "-" + neId);
+		
+		if (neNode == null) {
+			throw new MyNotFoundException("There is no network element whose Id is '" + neId + "' within the graph");
+		}
+		
+		return neNode;
+	}
+	
+	private Node findReferenceable(String nffgId, String id)
+	{
+		Node n = graphDB.findNode(NodeType.Endpoint, "uniqueProp", nffgId + "-" + id);
+		
+		return (n != null) ? n : graphDB.findNode(NodeType.ConnectionPoint, "uniqueProp", nffgId + "-" + id);
+	}
+	
+	private List<Node> getFlowrulesNodes(Node neNode, String idRef)
+	{
+		List<Node> frNodes = new ArrayList<Node>();
+		
+		for (Relationship r : neNode.getRelationships(RelationType.InfoRelationship, Direction.OUTGOING))
+		{
+			Node n = r.getEndNode();
+			
+			if (n.hasLabel(NodeType.Flowrules) && idRef.equals(n.getProperty("epcp-idRef")))
+			{
+				frNodes.add(n);
+			}
+		}
+		
+		return frNodes;
+	}
+	
+	/**
+	 * Removes the flowrules of an ep-cp, together with one PathRelationship for each of their output actions. 
+	 * The removed nodes and relationships are counted in the given statistics.
+	 */
+	private int removeFlowrules(String nffgId, Node neNode, Node refNode, String idRef, NffgStats removed)
+	{
+		List<Node> frNodes = getFlowrulesNodes(neNode, idRef);
+		
+		for (Node frNode : frNodes)
+		{
+			for (Relationship r : frNode.getRelationships(RelationType.InfoRelationship, Direction.OUTGOING))
 			{
-				nfNode = nfs.next();
-				nft = obFactory.createNfType();
-				nft.setId((String) nfNode.getProperty("id"));
-				nft.setFunctionalType((String) nfNode.getProperty("functionType"));
-				spt = obFactory.createSpecType();
-				cits = obFactory.createCtrlInterfacesType();
-				cpts = obFactory.createCpointsType();
-				mpts = obFactory.createMonParamsType();
+				Node n = r.getEndNode();
 				
-				for (Relationship r : nfNode.getRelationships(Direction.OUTGOING, RelationType.InfoRelationship))
+				if (n.hasProperty("port"))
 				{
-					otherNode = r.getOtherNode(nfNode);
+					Node portNode = findReferenceable(nffgId, (String) n.getProperty("port"));
 					
-					if (otherNode.hasLabel(NodeType.Specification))
-					{
-						if (otherNode.hasProperty("deployment")) 
-						{
-							dt = obFactory.createSpecTypeDeployment();
-							dt.setType((String) otherNode.getProperty("deployment"));
-							spt.setDeployment(dt);
-						}
-							
-						if (otherNode.hasProperty("image"))
-						{
-							it = obFactory.createSpecTypeImage();
-							it.setUri((String) otherNode.getProperty("image"));
-							spt.setImage(it);
-						}
-							
-						cpu = obFactory.createSpecTypeCpu();
-						
-						if (otherNode.hasProperty("cpu-model")) {
-							cpu.setModel((String) otherNode.getProperty("cpu-model"));			
-						}
-							
-						if (otherNode.hasProperty("cpu-architecture")) {
-							cpu.setArchitecture((String) otherNode.getProperty("cpu-architecture"));
-						}
-							
-						if (otherNode.hasProperty("cpu-numCores")) {
-							cpu.setNumCores((Short) otherNode.getProperty("cpu-numCores"));
-						}
-							
-						if (otherNode.hasProperty("cpu-clockSpeed")) {
-							cpu.setClockSpeed((String) otherNode.getProperty("cpu-clockSpeed"));
-						}
-							
-						spt.setCpu(cpu);
-						mem = obFactory.createSpecTypeMemory();
-							
-						if (otherNode.hasProperty("mem-type")) {
-							mem.setType((String) otherNode.getProperty("mem-type"));
-						}
-							
-						if (otherNode.hasProperty("mem-size")) {
-							mem.setSize((String) otherNode.getProperty("mem-size"));
-						}
-							
-						spt.setMemory(mem);
-						sto = obFactory.createSpecTypeStorage();
-							
-						if (otherNode.hasProperty("sto-type")) {
-							sto.setType((String) otherNode.getProperty("sto-type"));
-						}
-							
-						if (otherNode.hasProperty("sto-size")) {
-							sto.setSize((String) otherNode.getProperty("sto-size"));
-						}
-							
-						spt.setStorage(sto);
-						nft.setSpecification(spt);
-					}
-					else if (otherNode.hasLabel(NodeType.CtrlInterface))
+					for (Relationship pr : refNode.getRelationships(RelationType.PathRelationship, Direction.OUTGOING))
 					{
-						cit = obFactory.createCiType();
-						cit.setId((String) otherNode.getProperty("id"));
-						atts = obFactory.createCiTypeAttributes();
-							
-						if (otherNode.hasProperty("attributes")) 
+						if (pr.getEndNode().equals(portNode))
 						{
-							tmpArray = (String[]) otherNode.getProperty("attributes");
-								
-							for (int i = 0; i < tmpArray.length; i++)
-							{
-								att = obFactory.createCiTypeAttributesAttribute();
-								att.setValue(tmpArray[i]);
-								atts.getAttribute().add(att);
-							}
+							removed.add(pr);
+							pr.delete();
+							break;
 						}
-							
-						cit.setAttributes(atts);
-						cits.getControlInterface().add(cit);
-					}
-					else
-					{
-						setMonitoringParametersElement(mpts, otherNode);
 					}
 				}
 				
-				for (Relationship r : nfNode.getRelationships(Direction.BOTH, RelationType.PathRelationship))
+				removed.add(n);
+				deleteNode(n);
+			}
+			
+			removed.add(frNode);
+			deleteNode(frNode);
+		}
+		
+		return frNodes.size();
+	}
+	
+	/**
+	 * Retrieve the flowrules of an ep-cp within a network element of a graph.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param neId the id of the network element.
+	 * @param idRef the id of the endpoint or connection point the flowrules refer to.
+	 * @return the ep-cp with its flowrules (none, if the network element has no flowrules for it).
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the network element or the endpoint/connection point.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see EpCp
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see MyNotFoundException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public EpCp retrieveFlowrules(String nffgId, String neId, String idRef) throws Exception
+	{
+		EpCp epcp = obFactory.createEpCp();
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			if (graphDB.findNode(NodeType.Nffg, "id", nffgId) == null) {
+				throw new MyNotFoundException("There is no graph whose Id is '" + nffgId.substring("nffg_".length()) + "'");
+			}
+			
+			Node neNode = findNetworkElement(nffgId, neId);
+			
+			if (findReferenceable(nffgId, idRef) == null) {
+				throw new MyNotFoundException("There is no ep/cp whose Id is '" + idRef + "' within the graph");
+			}
+			
+			epcp.setIdRef(idRef);
+			
+			for (Node frNode : getFlowrulesNodes(neNode, idRef))
+			{
+				epcp.getFlowrules().add(getFlowrulesElement(frNode));
+			}
+			
+			tx.success();
+		}
+		finally
+		{
+			tx.close();
+		}
+		
+		return epcp;
+	}
+	
+	/**
+	 * Append some flowrules to an ep-cp within a network element of a graph. The rest of the graph is not touched.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param neId the id of the network element.
+	 * @param epcp the ep-cp with the flowrules to append.
+	 * @return the number of appended flowrules.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the network element.
+	 * @throws MyConstraintViolationException if the flowrules refer to unknown endpoints/connection points, 
+	 * or if the ep-cp belongs to another network element.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see EpCpType
+	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public int addFlowrules(String nffgId, String neId, EpCpType epcp) throws Exception
+	{
+		return writeFlowrules(nffgId, neId, epcp, false);
+	}
+	
+	/**
+	 * Replace all the flowrules of an ep-cp within a network element of a graph. The rest of the graph is not touched.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param neId the id of the network element.
+	 * @param epcp the ep-cp with its new flowrules.
+	 * @return the number of flowrules of the ep-cp.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the network element.
+	 * @throws MyConstraintViolationException if the flowrules refer to unknown endpoints/connection points, 
+	 * or if the ep-cp belongs to another network element.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see EpCpType
+	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public int replaceFlowrules(String nffgId, String neId, EpCpType epcp) throws Exception
+	{
+		return writeFlowrules(nffgId, neId, epcp, true);
+	}
+	
+	private int writeFlowrules(String nffgId, String neId, EpCpType epcp, boolean replace) throws Exception
+	{
+		Map<String, Node> refs = new HashMap<String, Node>();
+		NffgStats removed = new NffgStats();
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			Node nffgNode = lockNffg(tx, nffgId);
+			Node neNode = findNetworkElement(nffgId, neId);
+			List<String> ids = new ArrayList<String>();
+			ids.add(epcp.getIdRef());
+			
+			for (FlowrulesType frt : epcp.getFlowrules())
+			{
+				for (ActionType act : frt.getActions().getAction())
 				{
-					otherNode = r.getOtherNode(nfNode);
-					cpt = obFactory.createCpType();
-					cpt.setId((String) otherNode.getProperty("id"));
-					port = obFactory.createPortType();
-					port.setId((int) otherNode.getProperty("port-id"));
-					port.setDirection(PortDirEnumType.fromValue((String) otherNode.getProperty("port-direction")));
-					
-					if (otherNode.hasProperty("port-type")) {
-						port.setType((String) otherNode.getProperty("port-type"));
+					if (act.getPort() != null) {
+						ids.add(act.getPort());
 					}
-					
-					cpt.setPort(port);
-					cpts.getConnectionPoint().add(cpt);
 				}
-
-				nft.setSpecification(spt);
-				nft.setControlInterfaces(cits);
-				nft.setConnectionPoints(cpts);
-				nft.setMonitoringParameters(mpts);
-				graph.getNetworkFunctions().getNetworkFunction().add(nft);
 			}
 			
-			nfs.close();
-			ResourceIterator<Node> nes = graphDB.findNodes(NodeType.NetworkElement, "nffgId", id);
-			graph.setNetworkElements(obFactory.createNelementsType());
+			for (String id : ids)
+			{
+				Node n = findReferenceable(nffgId, id);
+				
+				if (n != null) {
+					refs.put(id, n);
+				}
+			}
 			
-			while (nes.hasNext())
+			NffgWriter.validateFlowrules(epcp, refs.keySet());
+			
+			// The id_ref of an ep-cp is unique within the whole graph (see the schema).
+			for (Relationship r : nffgNode.getRelationships(RelationType.InfoRelationship, Direction.OUTGOING))
 			{
-				neNode = nes.next();
-				net = obFactory.createNeType();
-				net.setId((String) neNode.getProperty("id"));
-				net.setType((String) neNode.getProperty("type"));
-				refs = obFactory.createEpsCpsType();
-				mpts = obFactory.createMonParamsType();
+				Node other = r.getEndNode();
 				
-				for (Relationship r : neNode.getRelationships(Direction.OUTGOING))
-				{
-					otherNode = r.getOtherNode(neNode);
-					
-					if (otherNode.hasLabel(NodeType.Flowrules))
-					{
-						ref = getEpCp(refs, otherNode);
-						frt = obFactory.createFlowrulesType();
-						fft = obFactory.createFlowrulesTypeFlowspace();
-						acts = obFactory.createActionsType();
-
-						for (Relationship ar : otherNode.getRelationships(Direction.OUTGOING))
-						{
-							otherNode2 = ar.getOtherNode(otherNode);
-							
-							if (otherNode2.hasLabel(NodeType.Action))
-							{
-								act = obFactory.createActionType();
-								act.setType(ActionEnumType.fromValue((String) otherNode2.getProperty("type")));
-								
-								if (otherNode2.hasProperty("port")) {
-									act.setPort((String) otherNode2.getProperty("port"));
-								}
-								
-								acts.getAction().add(act);
-							}
-							else
-							{
-								if (otherNode2.hasProperty("ingPort")) {
-									fft.setIngPort((String) otherNode2.getProperty("ingPort"));
-								}
-								
-								fft.setMac(setMacHeadersInFlowspaceElement(otherNode2));
-								fft.setIp(setIpHeadersInFlowspaceElement(otherNode2));
-								fft.setTcp(setTcpHeadersInFlowspaceElement(otherNode2));
-								fft.setUdp(setUdpHeadersInFlowspaceElement(otherNode2));
-							}
-						}
-						
-						frt.setFlowspace(fft);
-						frt.setActions(acts);
-						ref.getFlowrules().add(frt);
-					}
-					else
-					{
-						setMonitoringParametersElement(mpts, otherNode);
-					}
+				if (other.hasLabel(NodeType.NetworkElement) && !other.equals(neNode) && !getFlowrulesNodes(other, epcp.getIdRef()).isEmpty()) {
+					throw new MyConstraintViolationException("The ep-cp whose id_ref = " + epcp.getIdRef() + " belongs to the network element '" + other.getProperty("id") + "'");
 				}
-
-				net.setEpsCps(refs);
-				net.setMonitoringParameters(mpts);
-				graph.getNetworkElements().getNetworkElement().add(net);
 			}
 			
-			nes.close();
-			ResourceIterator<Node> mps = graphDB.findNodes(NodeType.MonitoringParameter, "nffgId", id);
-			mpts = obFactory.createMonParamsType();
+			if (replace) {
+				removeFlowrules(nffgId, neNode, refs.get(epcp.getIdRef()), epcp.getIdRef(), removed);
+			}
+			
+			NffgStats added = new NffgStats();
+			nffgWriter.counting(added).writeFlowrules(neNode, epcp, refs, nffgId);
+			nffgNode.setProperty(NffgWriter.REVISION, NffgWriter.newRevision());
+			updateStats(nffgNode, added, removed);
+			tx.success();
+		}
+		finally
+		{
+			tx.close();
+		}
+		
+		responseCache.invalidate(nffgId);
+		
+		return epcp.getFlowrules().size();
+	}
+	
+	/**
+	 * Remove all the flowrules of an ep-cp within a network element of a graph. The rest of the graph is not touched.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param neId the id of the network element.
+	 * @param idRef the id of the endpoint or connection point the flowrules refer to.
+	 * @return the number of removed flowrules.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the network element or the endpoint/connection point.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see MyNotFoundException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public int deleteFlowrules(String nffgId, String neId, String idRef) throws Exception
+	{
+		int removed;
+		NffgStats removedStats = new NffgStats();
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			Node nffgNode = lockNffg(tx, nffgId);
+			Node neNode = findNetworkElement(nffgId, neId);
+			Node refNode = findReferenceable(nffgId, idRef);
 			
-			while (mps.hasNext())
+			if (refNode == null) {
+				throw new MyNotFoundException("There is no ep/cp whose Id is '" + idRef + "' within the graph");
+			}
+			
+			removed = removeFlowrules(nffgId, neNode, refNode, idRef, removedStats);
+			
+			if (removed > 0) 
+			{
+				nffgNode.setProperty(NffgWriter.REVISION, NffgWriter.newRevision());
+				updateStats(nffgNode, new NffgStats(), removedStats);
+			}
+			
+			tx.success();
+		}
+		finally
+		{
+			tx.close();
+		}
+		
+		responseCache.invalidate(nffgId);
+		
+		return removed;
+	}
+	
+	/**
+	 * Applies the statistics of the added and of the removed parts to the ones of a graph, if it has them.
+	 */
+	private void updateStats(Node nffgNode, NffgStats added, NffgStats removed)
+	{
+		NffgStats stats = NffgStats.load(nffgNode);
+		
+		if (stats != null)
+		{
+			stats.add(added, 1);
+			stats.add(removed, -1);
+			stats.store(nffgNode);
+		}
+	}
+	
+	/**
+	 * The Pathable label has no index, so the node is looked up with the labels that have a uniqueness constraint on uniqueProp.
+	 * 
+	 * @return an endpoint, a network function or a connection point of a graph, or null if the graph has no such node.
+	 */
+	private Node findPathableNode(String nffgId, String nodeId)
+	{
+		Node node = null;
+		
+		for (NodeType type : new NodeType[] { NodeType.Endpoint, NodeType.NetworkFunction, NodeType.ConnectionPoint })
+		{
+			node = graphDB.findNode(type, "uniqueProp", nffgId + "-" + nodeId);
+			
+			if (node != null) {
+				break;
+			}
+		}
+		
+		return node;
+	}
+	
+	/**
+	 * @return the source and the destination node of a path within a graph.
+	 * @throws MyNotFoundException if the graph or one of the two nodes doesn't exist.
+	 */
+	private Node[] findPathEnds(String nffgId, String srcNodeId, String dstNodeId) throws MyNotFoundException
+	{
+		if (graphDB.findNode(NodeType.Nffg, "id", nffgId) == null) {
+			throw new MyNotFoundException("There is no graph whose Id is '" + nffgId.substring("nffg_".length()) + "'");
+		}
+		
+		Node srcNode = findPathableNode(nffgId, srcNodeId);
+		
+		if (srcNode == null) {
+			throw new MyNotFoundException("The node '" + srcNodeId + "', indicated as source node, doesn't exist within the graph");
+		}
+		
+		Node dstNode = findPathableNode(nffgId, dstNodeId);
+		
+		if (dstNode == null) {
+			throw new MyNotFoundException("The node '" + dstNodeId + "', indicated as destination node, doesn't exist within the graph");
+		}
+		
+		return new Node[] { srcNode, dstNode };
+	}
+	
+	/**
+	 * Receives the paths found by {@link Neo4jLibrary#findPaths(String, String, String, String, int, int, long, PathListener)} 
+	 * as soon as they are found.
+	 */
+	public interface PathListener
+	{
+		/**
+		 * @param path the path, as a String like '(src)-->(node)<--(dst)'.
+		 * @throws IOException if the path can't be delivered: the search is aborted.
+		 */
+		void path(String path) throws IOException;
+	}
+	
+	/**
+	 * Calculates and returns the paths from a source node to a destination one within a given graph 
+	 * that is specified by its id.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param srcNodeId the id of the source node.
+	 * @param dstNodeId the id of the destination node.
+	 * @param direction the direction considered in the calculation of paths (possible values are 'incoming', 
+	 * 'outgoing' and 'both').
+	 * @return a Set of String that represent the paths.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the source node or the destination one.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see #findPaths(String, String, String, String, int, int, long, PathListener)
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Set.html">Set</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see MyNotFoundException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public Set<String> findAllPaths(String nffgId, String srcNodeId, String dstNodeId, String direction) throws Exception
+	{
+		final Set<String> paths_printed = new HashSet<String>();
+		
+		findPaths(nffgId, srcNodeId, dstNodeId, direction, MAX_DEPTH, Integer.MAX_VALUE, 0, new PathListener()
+		{
+			@Override
+			public void path(String path)
 			{
-				mpNode = mps.next();
-				tmpRel = mpNode.getSingleRelationship(RelationType.InfoRelationship, Direction.INCOMING);
-				
-				if (tmpRel.getOtherNode(mpNode).hasLabel(NodeType.Nffg))
-				{
-					setMonitoringParametersElement(mpts, mpNode);
-				}
+				paths_printed.add(path);
 			}
-			
-			mps.close();			
-			graph.setMonitoringParameters(mpts);
+		});
+		
+		return paths_printed;
+	}
+	
+	/**
+	 * Checks that a graph and the two ends of a path within it exist, so that a search of the paths 
+	 * can't fail for this reason once its results are being sent.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param srcNodeId the id of the source node.
+	 * @param dstNodeId the id of the destination node.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the source node or the destination one.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see MyNotFoundException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public void checkPathEnds(String nffgId, String srcNodeId, String dstNodeId) throws Exception
+	{
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			findPathEnds(nffgId, srcNodeId, dstNodeId);
 			tx.success();
-			
-			return graph;
 		}
 		finally
 		{
@@ -1228,119 +2264,245 @@ public enum Neo4jLibrary
 		}
 	}
 	
-	private void deleteNode(Node n)
+	/**
+	 * Searches the paths from a source node to a destination one within a given graph that is specified by its id, 
+	 * and passes each of them to the listener as soon as it's found. A path never follows the same relationship twice, 
+	 * but it can cross a node (even the destination one) more than once.
+	 * The search is depth-first, so only the relationships of the current path are kept in memory, and it stops 
+	 * when more than limit paths have been found or when the time available is over. 
+	 * If the listener fails (e.g. because the client has gone away), the search is aborted.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param srcNodeId the id of the source node.
+	 * @param dstNodeId the id of the destination node.
+	 * @param direction the direction considered in the calculation of paths (possible values are 'incoming', 
+	 * 'outgoing' and 'both').
+	 * @param maxDepth the maximum number of relationships of a path.
+	 * @param limit the maximum number of paths passed to the listener.
+	 * @param timeoutMs the milliseconds available for the search, or 0 if the search has no time limit.
+	 * @param listener the listener that receives the paths.
+	 * @return true if the search has been stopped before finding all the paths (because of limit or timeoutMs).
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the source node or the destination one.
+	 * @throws IOException if the listener fails.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see PathListener
+	 * @see MyNotFoundException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/io/IOException.html">IOException</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
+	 */
+	public boolean findPaths(String nffgId, String srcNodeId, String dstNodeId, String direction, int maxDepth, int limit, long timeoutMs, PathListener listener) throws Exception
 	{
-		n.getAllProperties().clear();
-					
-		for (Relationship r : n.getRelationships())
+		Transaction tx = graphDB.beginTx();
+		
+		try
 		{
-			r.getAllProperties().clear();
-			r.delete();
+			Node[] ends = findPathEnds(nffgId, srcNodeId, dstNodeId);
+			boolean truncated = findPaths(ends[0], ends[1], Direction.valueOf(direction.toUpperCase()), maxDepth, limit, TimeUnit.MILLISECONDS.toNanos(timeoutMs), listener);
+			tx.success();
+			return truncated;
+		}
+		finally
+		{
+			tx.close();
 		}
-					
-		n.delete();	
 	}
 	
 	/**
-	 * Delete some graphs from Neo4j database.
+	 * Calculates the k shortest paths from a source node to a destination one within a given graph 
+	 * that is specified by its id, and passes them to a listener, the shortest first. 
+	 * Unlike the ones of {@link #findPaths(String, String, String, String, int, int, long, PathListener)}, 
+	 * these paths never cross a node twice. The shortest path is found by a breadth-first search, 
+	 * the next ones by Yen's algorithm (see {@link NffgShortestPaths}), so the cost doesn't depend on the number 
+	 * of paths between the two nodes, and the search stops when the time available is over.
 	 * 
-	 * @param ids array whose length is variable that contains the ids of the graphs we want to delete 
-	 * (if the first element of the array is equal to 'all', all graphs saved into the database will be deleted).
-	 * @throws Exception in case of any unpredictable errors.
-	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @param nffgId the id of the graph.
+	 * @param srcNodeId the id of the source node.
+	 * @param dstNodeId the id of the destination node.
+	 * @param direction the direction considered in the calculation of paths (possible values are 'incoming', 
+	 * 'outgoing' and 'both').
+	 * @param k the number of paths to find.
+	 * @param timeoutMs the milliseconds available for the search, or 0 if the search has no time limit.
+	 * @param listener the listener that receives the paths.
+	 * @return true if the search has been stopped by timeoutMs before finding k paths (or all of them, if they are less).
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the source node or the destination one.
+	 * @throws IOException if the listener fails.
+	 * @throws Exception in case of any other unpredictable errors.
+	 * @see PathListener
+	 * @see MyNotFoundException
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/io/IOException.html">IOException</a>
 	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
 	 */
-	public void deleteNffgs(String ... ids) throws Exception
-	{		
-		Node graph;
+	public boolean findShortestPaths(String nffgId, String srcNodeId, String dstNodeId, String direction, int k, long timeoutMs, PathListener listener) throws Exception
+	{
 		Transaction tx = graphDB.beginTx();
 		
 		try
 		{
-			if (ids[0].equalsIgnoreCase("all"))
+			Node[] ends = findPathEnds(nffgId, srcNodeId, dstNodeId);
+			boolean truncated = new NffgShortestPaths(Direction.valueOf(direction.toUpperCase()), MAX_DEPTH)
+									.find(ends[0], ends[1], k, TimeUnit.MILLISECONDS.toNanos(timeoutMs), listener);
+			tx.success();
+			return truncated;
+		}
+		finally
+		{
+			tx.close();
+		}
+	}
+	
+	/**
+	 * A node of the current path of {@link Neo4jLibrary#findPaths(Node, Node, Direction, int, int, long, PathListener)}.
+	 */
+	private static class PathStep
+	{
+		final Node node;
+		final Relationship via;
+		final int mark;
+		final Iterator<Relationship> relationships;
+		final Set<Long> followed = new HashSet<Long>();
+		
+		PathStep(Node node, Relationship via, int mark, Direction direction)
+		{
+			this.node = node;
+			this.via = via;
+			this.mark = mark;
+			this.relationships = node.getRelationships(direction, RelationType.PathRelationship).iterator();
+		}
+	}
+	
+	private static boolean findPaths(Node srcNode, Node dstNode, Direction direction, int maxDepth, int limit, long timeoutNanos, PathListener listener) throws IOException
+	{
+		long start = System.nanoTime(), steps = 0;
+		int found = 0;
+		Set<Long> used = new HashSet<Long>();
+		Deque<PathStep> stack = new ArrayDeque<PathStep>();
+		StringBuilder path = new StringBuilder("(").append(srcNode.getProperty("id", "")).append(')');
+		
+		if (srcNode.equals(dstNode))
+		{
+			listener.path(path.toString());
+			found++;
+		}
+		
+		stack.push(new PathStep(srcNode, null, 0, direction));
+		
+		while (!stack.isEmpty())
+		{
+			PathStep step = stack.peek();
+			
+			if (!step.relationships.hasNext())
 			{
-				for (Node n : gcOperations.getAllNodes())
-				{
-					deleteNode(n);
+				stack.pop();
+				path.setLength(step.mark);
+				
+				if (step.via != null) {
+					used.remove(step.via.getId());
 				}
 				
-				tx.success();
+				continue;
 			}
-			else
+			
+			if ((++steps & 1023) == 0 && timeoutNanos > 0 && System.nanoTime() - start > timeoutNanos) {
+				return true;
+			}
+			
+			Relationship r = step.relationships.next();
+			
+			if (used.contains(r.getId())) {
+				continue;
+			}
+			
+			Node other = r.getOtherNode(step.node);
+			boolean forward = r.getStartNode().equals(step.node);
+			
+			// Parallel relationships would give the same paths again: only the first one is followed.
+			if (!step.followed.add(forward ? other.getId() : ~other.getId())) {
+				continue;
+			}
+			
+			int mark = path.length();
+			path.append(forward ? "-->(" : "<--(").append(other.getProperty("id", "")).append(')');
+			
+			if (other.equals(dstNode))
 			{
-				for (int i = 0; i < ids.length; i++)
-				{
-					graph = graphDB.findNode(NodeType.Nffg, "id", ids[i]);
-					
-					if (graph != null)
-					{
-						for (Node n : gcOperations.getAllNodes())
-						{
-							if (n.hasProperty("nffgId") && n.getProperty("nffgId").equals(ids[i]))
-							{
-								deleteNode(n);
-							}
-						}
-						
-						deleteNode(graph);
-					}	
+				// The first path beyond the limit only tells that the result is truncated.
+				if (found == limit) {
+					return true;
 				}
 				
-				tx.success();
+				listener.path(path.toString());
+				found++;
+			}
+			
+			if (stack.size() < maxDepth)
+			{
+				stack.push(new PathStep(other, r, mark, direction));
+				used.add(r.getId());
+			}
+			else
+			{
+				path.setLength(mark);
 			}
 		}
-		finally
-		{
-			tx.close();
-		}
+		
+		return false;
 	}
 	
 	/**
-	 * Delete the graph whose id is equal to parameter id, from the Neo4j database.
+	 * Checks whether a destination node is reachable from a source one within a given graph 
+	 * that is specified by its id, following the relationships of the paths in the given direction.
+	 * Unlike {@link #findAllPaths(String, String, String, String)}, the paths aren't enumerated: 
+	 * the answer is read from the transitive closure of the graph kept by the {@link NffgReachabilityIndex}, 
+	 * that is built at the first check of each revision of the graph. If the index is disabled, 
+	 * a bidirectional breadth-first search visits every node and relationship at most once 
+	 * and stops as soon as the two searches meet.
 	 * 
-	 * @param id the id of the graph we want to delete.
-	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one.
+	 * @param nffgId the id of the graph.
+	 * @param srcNodeId the id of the source node.
+	 * @param dstNodeId the id of the destination node.
+	 * @param direction the direction considered (possible values are 'incoming', 'outgoing' and 'both').
+	 * @return true if there is at least a path from the source node to the destination one.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
+	 * affects the source node or the destination one.
 	 * @throws Exception in case of any other unpredictable errors.
-	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
 	 * @see MyNotFoundException
 	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
 	 */
-	public void deleteNffg(String id) throws Exception
-	{	
-		Node graph;
-		Lock lock = null;
+	public boolean isReachable(String nffgId, String srcNodeId, String dstNodeId, String direction) throws Exception
+	{
 		Transaction tx = graphDB.beginTx();
 		
 		try
-		{				
-			graph = graphDB.findNode(NodeType.Nffg, "id", id);
-			
-			if (graph != null) 
-			{
-				lock = tx.acquireWriteLock(graph);
-			}
-			
-			graph = graphDB.findNode(NodeType.Nffg, "id", id);
+		{
+			Direction dir = Direction.valueOf(direction.toUpperCase());
+			Node nffgNode = graphDB.findNode(NodeType.Nffg, "id", nffgId);
+			NffgReachabilityIndex.Closure closure = (nffgNode != null) ? reachabilityIndex.get(nffgNode) : null;
+			boolean reachable;
 			
-			if (graph != null)
+			if (closure != null)
 			{
-				for (Node n : gcOperations.getAllNodes())
-				{
-					if (n.hasProperty("nffgId") && n.getProperty("nffgId").equals(id))
-					{
-						deleteNode(n);
-					}
+				int src = closure.idOf(srcNodeId), dst = closure.idOf(dstNodeId);
+				
+				if (src < 0) {
+					throw new MyNotFoundException("The node '" + srcNodeId + "', indicated as source node, doesn't exist within the graph");
 				}
 				
-				deleteNode(graph);
-				lock.release();
-				tx.success();
+				if (dst < 0) {
+					throw new MyNotFoundException("The node '" + dstNodeId + "', indicated as destination node, doesn't exist within the graph");
+				}
+				
+				reachable = closure.isReachable(src, dst, dir);
 			}
 			else
 			{
-				tx.failure();
-				throw new MyNotFoundException("There is no graph whose Id is '" + id.substring("nffg_".length()) + "'");
-			}	
+				Node[] ends = findPathEnds(nffgId, srcNodeId, dstNodeId);
+				reachable = isReachable(ends[0], ends[1], dir);
+			}
+			
+			tx.success();
+			return reachable;
 		}
 		finally
 		{
@@ -1349,67 +2511,103 @@ public enum Neo4jLibrary
 	}
 	
 	/**
-	 * Calculates and returns the paths from a source node to a destination one within a given graph 
-	 * that is specified by its id.
+	 * Prepares the reachability matrix between every pair of nodes (endpoints, network functions and connection points) 
+	 * of a given graph that is specified by its id. Only the nodes and relationships of the graph are read here: 
+	 * the rows are computed while they are read (see {@link NffgReachabilityMatrix#rows(NffgReachabilityMatrix.RowListener)}), 
+	 * from the {@link NffgReachabilityIndex} if it's enabled; otherwise by word-parallel breadth-first searches 
+	 * (64 sources at a time), spread over the threads that retrieve the graphs.
 	 * 
 	 * @param nffgId the id of the graph.
-	 * @param srcNodeId the id of the source node.
-	 * @param dstNodeId the id of the destination node.
-	 * @param direction the direction considered in the calculation of paths (possible values are 'incoming', 
-	 * 'outgoing' and 'both').
-	 * @return a Set of String that represent the paths.
-	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one, or if this problem 
-	 * affects the source node or the destination one.
+	 * @param direction the direction considered (possible values are 'incoming', 'outgoing' and 'both').
+	 * @param endpointsOnly true to consider only the endpoints of the graph.
+	 * @return the nodes, in the order of their ids, and the rows for each of them where the character of each node 
+	 * is '1' if the node is reachable from the one of the row, '0' otherwise.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one.
 	 * @throws Exception in case of any other unpredictable errors.
-	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Set.html">Set</a>
-	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see NffgReachabilityMatrix
 	 * @see MyNotFoundException
 	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/Exception.html">Exception</a>
 	 */
-	public Set<String> findAllPaths(String nffgId, String srcNodeId, String dstNodeId, String direction) throws Exception
+	public NffgReachabilityMatrix getReachabilityMatrix(String nffgId, String direction, boolean endpointsOnly) throws Exception
 	{
 		Transaction tx = graphDB.beginTx();
 		
 		try
 		{
-			if (graphDB.findNode(NodeType.Nffg, "id", nffgId) == null)
-			{
-				tx.failure();
+			Node nffgNode = graphDB.findNode(NodeType.Nffg, "id", nffgId);
+			
+			if (nffgNode == null) {
 				throw new MyNotFoundException("There is no graph whose Id is '" + nffgId.substring("nffg_".length()) + "'");
 			}
 			
-			Node srcNode = graphDB.findNode(NodeType.Pathable, "uniqueProp", nffgId + "-" + srcNodeId);
+			NffgReachabilityIndex.Closure closure = reachabilityIndex.get(nffgNode);
+			NffgReachabilityIndex.Topology topology = (closure != null) ? closure.topology : NffgReachabilityIndex.load(nffgNode);
+			tx.success();
 			
-			if (srcNode == null)
+			// The rows are computed only from the topology already read, so they don't need the transaction.
+			return new NffgReachabilityMatrix(topology, closure, topology.select(endpointsOnly), Direction.valueOf(direction.toUpperCase()), retrievers);
+		}
+		finally
+		{
+			tx.close();
+		}
+	}
+	
+	private static boolean isReachable(Node srcNode, Node dstNode, Direction direction)
+	{
+		if (srcNode.equals(dstNode)) {
+			return true;
+		}
+		
+		Set<Node> forwardVisited = new HashSet<Node>(), backwardVisited = new HashSet<Node>();
+		Deque<Node> forward = new ArrayDeque<Node>(), backward = new ArrayDeque<Node>();
+		forwardVisited.add(srcNode);
+		forward.add(srcNode);
+		backwardVisited.add(dstNode);
+		backward.add(dstNode);
+		
+		// The smaller frontier is expanded first, so the search stays cheap when one of the two ends has a large fan-out.
+		while (!forward.isEmpty() && !backward.isEmpty())
+		{
+			if (forward.size() <= backward.size())
 			{
-				tx.failure();
-				throw new MyNotFoundException("The node '" + srcNodeId + "', indicated as source node, doesn't exist within the graph");
+				if (expandLevel(forward, direction, forwardVisited, backwardVisited)) {
+					return true;
+				}
 			}
-			
-			Node dstNode = graphDB.findNode(NodeType.Pathable, "uniqueProp", nffgId + "-" + dstNodeId);
-			
-			if (dstNode == null)
-			{
-				tx.failure();
-				throw new MyNotFoundException("The node '" + dstNodeId + "', indicated as destination node, doesn't exist within the graph");
+			else if (expandLevel(backward, direction.reverse(), backwardVisited, forwardVisited)) {
+				return true;
 			}
-			
-			direction = direction.toLowerCase();
-			
-			Set<String> paths_printed = new HashSet<String>();
-			PathFinder<Path> finder = GraphAlgoFactory.allPaths(PathExpanders.forTypeAndDirection(RelationType.PathRelationship, Direction.valueOf(direction.toUpperCase())), MAX_DEPTH);
-		    
-		    for (Path p : finder.findAllPaths(srcNode, dstNode))
-		    {
-		    	paths_printed.add(Paths.simplePathToString(p, "id"));
-		    }
-		    
-		    tx.success();
-		    return paths_printed;
 		}
-		finally
+		
+		return false;
+	}
+	
+	/**
+	 * Replaces the nodes of a frontier with their unvisited neighbours.
+	 * 
+	 * @return true if a neighbour has already been visited by the search that started from the other end.
+	 */
+	private static boolean expandLevel(Deque<Node> frontier, Direction direction, Set<Node> visited, Set<Node> otherVisited)
+	{
+		for (int i = frontier.size(); i > 0; i--)
 		{
-			tx.close();
+			Node node = frontier.poll();
+			
+			for (Relationship r : node.getRelationships(direction, RelationType.PathRelationship))
+			{
+				Node other = r.getOtherNode(node);
+				
+				if (otherVisited.contains(other)) {
+					return true;
+				}
+				
+				if (visited.add(other)) {
+					frontier.add(other);
+				}
+			}
 		}
+		
+		return false;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.stream.StreamSource;
+
+import org.eclipse.persistence.jaxb.JAXBContextFactory;
+import org.eclipse.persistence.jaxb.JAXBContextProperties;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.unsafe.batchinsert.BatchInserter;
+import org.neo4j.unsafe.batchinsert.BatchInserters;
+
+import it.polito.nffg.neo4j.exceptions.MyConstraintViolationException;
+import it.polito.nffg.neo4j.jaxb.Nffg;
+import it.polito.nffg.neo4j.jaxb.NffgSet;
+
+/**
+ * Offline tool that loads a whole NffgSet document (XML or JSON) directly into the Neo4j store, 
+ * through the BatchInserter: no transactions, no transaction log and the indexes of the constraints 
+ * populated only once, when the inserter shuts down.
+ * XML documents are read as a stream, one graph at a time, so their size is not limited by the heap.
+ * The stored graphs are identical to the ones saved by the service, ids included. 
+ * The service must be stopped while the loader runs, because the store can't be opened by two processes.
+ * 
+ * Usage: java it.polito.nffg.neo4j.manager.NffgBatchLoader storeDir file mediaType
+ * (the extension of the file is derived from the media type, as in the Neo4jClient).
+ */
+public class NffgBatchLoader
+{
+	private final File storeDir;
+	private NffgIdAllocator idAllocator;
+	private long nodes = 0, relationships = 0;
+	private int loaded = 0, skipped = 0;
+	private BatchInserter inserter;
+	private NffgWriter<Long> writer;
+	
+	public NffgBatchLoader(File storeDir)
+	{
+		this.storeDir = storeDir;
+	}
+	
+	/**
+	 * Unmarshals a JSON NffgSet document, in the same format produced by the service.
+	 * 
+	 * @param file the document.
+	 * @return the set of graphs.
+	 * @throws JAXBException if the document can't be read.
+	 */
+	static NffgSet readJsonNffgSet(File file) throws JAXBException
+	{
+		Map<String, Object> properties = new HashMap<String, Object>();
+		properties.put(JAXBContextProperties.MEDIA_TYPE, "application/json");
+		properties.put(JAXBContextProperties.JSON_INCLUDE_ROOT, false);
+		
+		JAXBContext jc = JAXBContextFactory.createContext(new Class<?>[] { NffgSet.class }, properties);
+		
+		return jc.createUnmarshaller().unmarshal(new StreamSource(file), NffgSet.class).getValue();
+	}
+	
+	/**
+	 * Opens the store as an embedded database only to create the constraints and the indexes (if the store is new), 
+	 * which the batch inserter populates when it is closed, and to collect the ids of the graphs already saved. 
+	 * The snapshot of the ids saved by the service is deleted, since it won't be valid anymore after the load.
+	 */
+	private void prepareStore()
+	{
+		GraphDatabaseService graphDB = new GraphDatabaseFactory().newEmbeddedDatabase(storeDir);
+		
+		try
+		{
+			NffgSchema.createConstraints(graphDB);
+			NffgSchema.createIndexes(graphDB);
+			NffgIdAllocator.snapshotFile(storeDir).delete();
+			idAllocator = NffgIdAllocator.rebuild(graphDB);
+		}
+		finally
+		{
+			graphDB.shutdown();
+		}
+	}
+	
+	private void open() throws IOException
+	{
+		prepareStore();
+		
+		inserter = BatchInserters.inserter(storeDir);
+		writer = new NffgWriter<Long>(new NffgWriter.Target<Long>()
+		{
+			@Override
+			public Long createNode(Map<String, Object> properties, Label... labels)
+			{
+				nodes++;
+				return inserter.createNode(properties, labels);
+			}
+			
+			@Override
+			public void createRelationship(Long from, Long to, RelationshipType type)
+			{
+				relationships++;
+				inserter.createRelationship(from, to, type, null);
+			}
+			
+			@Override
+			public void setProperties(Long node, Map<String, Object> properties)
+			{
+				for (Map.Entry<String, Object> p : properties.entrySet())
+				{
+					inserter.setNodeProperty(node, p.getKey(), p.getValue());
+				}
+			}
+		});
+	}
+	
+	private void insert(Nffg graph)
+	{
+		try
+		{
+			NffgWriter.validate(graph);
+		}
+		catch (MyConstraintViolationException e)
+		{
+			System.err.println("Nffg " + graph.getId() + " skipped: " + e.getMessage());
+			skipped++;
+			return;
+		}
+		
+		writer.write(graph, "nffg_" + idAllocator.allocate(graph.getId()));
+		loaded++;
+	}
+	
+	private void close()
+	{
+		// Flushes the store files and populates the indexes of the constraints.
+		inserter.shutdown();
+		inserter = null;
+		writer = null;
+	}
+	
+	/**
+	 * Loads every graph of the set. The graphs that violate a constraint are reported and skipped.
+	 * 
+	 * @param nffgSet the graphs to load.
+	 * @throws IOException if the store can't be opened by the inserter.
+	 */
+	public void load(NffgSet nffgSet) throws IOException
+	{
+		open();
+		
+		try
+		{
+			for (Nffg graph : nffgSet.getNffg())
+			{
+				insert(graph);
+			}
+		}
+		finally
+		{
+			close();
+		}
+	}
+	
+	/**
+	 * Loads every graph of a XML nffg-set document, reading it as a stream: 
+	 * each graph is unmarshalled only when the previous one has been written.
+	 * The graphs that violate a constraint are reported and skipped.
+	 * 
+	 * @param in the document.
+	 * @throws Exception if the store can't be opened or the document can't be read.
+	 */
+	public void load(InputStream in) throws Exception
+	{
+		NffgSetReader reader = new NffgSetReader(in);
+		open();
+		
+		try
+		{
+			Nffg graph;
+			
+			while ((graph = reader.read()) != null)
+			{
+				insert(graph);
+			}
+		}
+		finally
+		{
+			close();
+			reader.close();
+		}
+	}
+	
+	public static void main(String[] params)
+	{
+		if (params.length < 3)
+		{
+			System.err.println("Usage: java " + NffgBatchLoader.class.getCanonicalName() + " storeDir file mediaType");
+			System.exit(1);
+		}
+		
+		try
+		{
+			NffgBatchLoader loader = new NffgBatchLoader(new File(params[0]));
+			long start = System.currentTimeMillis();
+			
+			if (params[2].equalsIgnoreCase("application/json"))
+			{
+				// MOXy can't unmarshal the graphs one at a time, then the whole set is read.
+				loader.load(readJsonNffgSet(new File(params[1] + ".json")));
+			}
+			else
+			{
+				InputStream in = new BufferedInputStream(new FileInputStream(params[1] + ".xml"));
+				
+				try
+				{
+					loader.load(in);
+				}
+				finally
+				{
+					in.close();
+				}
+			}
+			
+			long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+			
+			System.out.println("Nffgs loaded: " + loader.loaded + ", skipped: " + loader.skipped);
+			System.out.println("Nodes: " + loader.nodes + ", relationships: " + loader.relationships + 
+							   ", elapsed: " + elapsed + " ms (" + (loader.nodes * 1000 / elapsed) + " nodes/s)");
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
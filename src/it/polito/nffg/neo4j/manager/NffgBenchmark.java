@@ -0,0 +1,536 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+
+import it.polito.nffg.neo4j.jaxb.ActionEnumType;
+import it.polito.nffg.neo4j.jaxb.ActionType;
+import it.polito.nffg.neo4j.jaxb.CpType;
+import it.polito.nffg.neo4j.jaxb.EpCpType;
+import it.polito.nffg.neo4j.jaxb.EpType;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType;
+import it.polito.nffg.neo4j.jaxb.NeType;
+import it.polito.nffg.neo4j.jaxb.NfType;
+import it.polito.nffg.neo4j.jaxb.Nffg;
+import it.polito.nffg.neo4j.jaxb.NffgSet;
+import it.polito.nffg.neo4j.jaxb.ObjectFactory;
+import it.polito.nffg.neo4j.jaxb.PortDirEnumType;
+import it.polito.nffg.neo4j.jaxb.PortType;
+import it.polito.nffg.neo4j.jaxb.SpecType;
+
+/**
+ * Throughput benchmark of the library, run against the database of the deployment folder 
+ * (the system property catalina.home must be set as for the server, and the server must be stopped).
+ * It works on synthetic graphs and deletes every graph it creates.
+ * 
+ * Usage: java it.polito.nffg.neo4j.manager.NffgBenchmark -create graphs networkFunctions threads...
+ * (the creation of the graphs is measured once for each number of threads given), or
+ * java it.polito.nffg.neo4j.manager.NffgBenchmark -retrieve graphs networkFunctions parallelism...
+ * (the retrieval of all the graphs is measured sequentially and once for each parallelism given), or
+ * java it.polito.nffg.neo4j.manager.NffgBenchmark -mapper nodes rounds
+ * (the reading of flowspace and specification nodes with every property set is measured, both with a hasProperty 
+ * and a getProperty call for each property and with the {@link PropertyMapper}; this mode works on a temporary database).
+ */
+public class NffgBenchmark
+{
+	private static final ObjectFactory obFactory = new ObjectFactory();
+	
+	/**
+	 * Builds a chain: ep_0, nf_0, ..., nf_N-1, ep_1, where every network function has an input 
+	 * and an output connection point and a single network element forwards the traffic along the chain.
+	 * 
+	 * @param networkFunctions the number of network functions.
+	 * @return the graph, without id.
+	 */
+	static Nffg chainGraph(int networkFunctions)
+	{
+		Nffg graph = obFactory.createNffg();
+		graph.setVersion("1.0");
+		graph.setEndpoints(obFactory.createEpointsType());
+		graph.setNetworkFunctions(obFactory.createNfunctionsType());
+		graph.setNetworkElements(obFactory.createNelementsType());
+		graph.setMonitoringParameters(obFactory.createMonParamsType());
+		
+		for (int i = 0; i < 2; i++)
+		{
+			EpType ep = obFactory.createEpType();
+			ep.setId("ep_" + i);
+			ep.setFlowspace(obFactory.createEpTypeFlowspace());
+			ep.getFlowspace().setIngPhysPort(String.valueOf(i));
+			graph.getEndpoints().getEndpoint().add(ep);
+		}
+		
+		for (int i = 0; i < networkFunctions; i++)
+		{
+			NfType nf = obFactory.createNfType();
+			nf.setId("nf_" + i);
+			nf.setFunctionalType("firewall");
+			nf.setConnectionPoints(obFactory.createCpointsType());
+			nf.setControlInterfaces(obFactory.createCtrlInterfacesType());
+			nf.setMonitoringParameters(obFactory.createMonParamsType());
+			
+			SpecType st = obFactory.createSpecType();
+			st.setDeployment(obFactory.createSpecTypeDeployment());
+			st.setImage(obFactory.createSpecTypeImage());
+			st.setCpu(obFactory.createSpecTypeCpu());
+			st.setMemory(obFactory.createSpecTypeMemory());
+			st.setStorage(obFactory.createSpecTypeStorage());
+			nf.setSpecification(st);
+			
+			for (int d = 0; d < 2; d++)
+			{
+				PortType port = obFactory.createPortType();
+				port.setId(d);
+				port.setDirection((d == 0) ? PortDirEnumType.IN : PortDirEnumType.OUT);
+				
+				CpType cp = obFactory.createCpType();
+				cp.setId("cp_" + i + "_" + d);
+				cp.setPort(port);
+				nf.getConnectionPoints().getConnectionPoint().add(cp);
+			}
+			
+			graph.getNetworkFunctions().getNetworkFunction().add(nf);
+		}
+		
+		NeType ne = obFactory.createNeType();
+		ne.setId("ne_0");
+		ne.setType("BiSBiS");
+		ne.setEpsCps(obFactory.createEpsCpsType());
+		ne.setMonitoringParameters(obFactory.createMonParamsType());
+		
+		for (int i = 0; i <= networkFunctions; i++)
+		{
+			ActionType action = obFactory.createActionType();
+			action.setType(ActionEnumType.OUTPUT);
+			action.setPort((i < networkFunctions) ? "cp_" + i + "_0" : "ep_1");
+			
+			FlowrulesType fr = obFactory.createFlowrulesType();
+			fr.setFlowspace(obFactory.createFlowrulesTypeFlowspace());
+			fr.setActions(obFactory.createActionsType());
+			fr.getActions().getAction().add(action);
+			
+			EpCpType epcp = obFactory.createEpCpType();
+			epcp.setIdRef((i == 0) ? "ep_0" : "cp_" + (i - 1) + "_1");
+			epcp.getFlowrules().add(fr);
+			ne.getEpsCps().getEpCp().add(epcp);
+		}
+		
+		graph.getNetworkElements().getNetworkElement().add(ne);
+		
+		return graph;
+	}
+	
+	private static void deleteAll(List<Integer> ids) throws Exception
+	{
+		for (Integer id : ids)
+		{
+			Neo4jLibrary.instance.deleteNffg("nffg_" + id);
+		}
+	}
+	
+	private static void benchmarkCreate(int graphs, int networkFunctions, int threads) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+		List<Integer> ids = new ArrayList<Integer>();
+		
+		long start = System.nanoTime();
+		
+		try
+		{
+			for (int i = 0; i < graphs; i++)
+			{
+				final Nffg graph = chainGraph(networkFunctions);
+				
+				results.add(executor.submit(new Callable<Integer>()
+				{
+					@Override
+					public Integer call() throws Exception
+					{
+						return Neo4jLibrary.instance.createNffg(graph);
+					}
+				}));
+			}
+			
+			for (Future<Integer> result : results)
+			{
+				ids.add(result.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		
+		long elapsed = Math.max((System.nanoTime() - start) / 1000000, 1);
+		
+		if (new HashSet<Integer>(ids).size() != ids.size()) {
+			throw new IllegalStateException("The same id has been assigned to two graphs");
+		}
+		
+		System.out.println("threads: " + threads + ", graphs: " + graphs + ", elapsed: " + elapsed + " ms (" + 
+						   (graphs * 1000L / elapsed) + " graphs/s)");
+		
+		Collections.sort(ids);
+		deleteAll(ids);
+	}
+	
+	private static long measureRetrieve(List<String> ids, ForkJoinPool pool, List<String> expected)
+	{
+		long start = System.nanoTime();
+		NffgSet graphs = Neo4jLibrary.instance.retrieveNffgs(ids, NffgField.ALL, pool);
+		long elapsed = Math.max((System.nanoTime() - start) / 1000000, 1);
+		
+		if (graphs.getNffg().size() != expected.size()) {
+			throw new IllegalStateException("Some graphs haven't been retrieved");
+		}
+		
+		for (int i = 0; i < graphs.getNffg().size(); i++)
+		{
+			if (!graphs.getNffg().get(i).getId().equals(expected.get(i))) {
+				throw new IllegalStateException("The graphs haven't been retrieved in the order of their ids");
+			}
+		}
+		
+		return elapsed;
+	}
+	
+	private static void benchmarkRetrieve(int graphs, int networkFunctions, int[] parallelisms) throws Exception
+	{
+		List<Nffg> toCreate = new ArrayList<Nffg>();
+		List<Integer> created = new ArrayList<Integer>();
+		List<String> ids = new ArrayList<String>();
+		
+		for (int i = 0; i < graphs; i++)
+		{
+			toCreate.add(chainGraph(networkFunctions));
+		}
+		
+		for (Neo4jLibrary.CreationResult result : Neo4jLibrary.instance.createNffgs(toCreate, 100))
+		{
+			if (result.getError() != null) {
+				throw result.getError();
+			}
+			
+			created.add(result.getId());
+		}
+		
+		Collections.sort(created);
+		
+		for (Integer id : created)
+		{
+			ids.add("nffg_" + id);
+		}
+		
+		try
+		{
+			// Warm up, so that the first measure doesn't pay for loading the store into the page cache.
+			measureRetrieve(ids, null, ids);
+			long sequential = measureRetrieve(ids, null, ids);
+			System.out.println("sequential, graphs: " + graphs + ", elapsed: " + sequential + " ms (" + 
+							   (graphs * 1000L / sequential) + " graphs/s)");
+			
+			for (int parallelism : parallelisms)
+			{
+				ForkJoinPool pool = new ForkJoinPool(parallelism);
+				
+				try
+				{
+					long elapsed = measureRetrieve(ids, pool, ids);
+					System.out.println("parallelism: " + parallelism + ", graphs: " + graphs + ", elapsed: " + elapsed + " ms (" + 
+									   (graphs * 1000L / elapsed) + " graphs/s, speedup " + 
+									   String.format("%.2f", (double) sequential / elapsed) + ")");
+				}
+				finally
+				{
+					pool.shutdown();
+				}
+			}
+		}
+		finally
+		{
+			deleteAll(created);
+		}
+	}
+	
+	private static <E> int readLegacy(PropertyMapper<E> mapper, Node node)
+	{
+		List<PropertyMapper.Field<E>> fields = mapper.getFields();
+		boolean present = false;
+		
+		for (PropertyMapper.Field<E> f : fields)
+		{
+			if (node.hasProperty(f.key))
+			{
+				present = true;
+				break;
+			}
+		}
+		
+		if (!present) {
+			return 0;
+		}
+		
+		E element = mapper.create();
+		
+		for (PropertyMapper.Field<E> f : fields)
+		{
+			if (node.hasProperty(f.key)) {
+				f.set(element, node.getProperty(f.key));
+			}
+		}
+		
+		return 1;
+	}
+	
+	private static int readMapped(PropertyMapper<?> mapper, Map<String, Object> properties)
+	{
+		return (mapper.read(properties) != null) ? 1 : 0;
+	}
+	
+	private static long measureMapper(GraphDatabaseService graphDB, List<Node> flowspaces, List<Node> specifications, boolean legacy)
+	{
+		int read = 0;
+		long start = System.nanoTime();
+		
+		try (Transaction tx = graphDB.beginTx())
+		{
+			for (Node node : flowspaces)
+			{
+				if (legacy)
+				{
+					read += readLegacy(PropertyMapper.MAC, node) + readLegacy(PropertyMapper.IP, node) + 
+							readLegacy(PropertyMapper.TCP, node) + readLegacy(PropertyMapper.UDP, node);
+				}
+				else
+				{
+					Map<String, Object> properties = node.getAllProperties();
+					read += readMapped(PropertyMapper.MAC, properties) + readMapped(PropertyMapper.IP, properties) + 
+							readMapped(PropertyMapper.TCP, properties) + readMapped(PropertyMapper.UDP, properties);
+				}
+			}
+			
+			for (Node node : specifications)
+			{
+				read += legacy ? readLegacy(PropertyMapper.SPECIFICATION, node) : 
+								 readMapped(PropertyMapper.SPECIFICATION, node.getAllProperties());
+			}
+			
+			tx.success();
+		}
+		
+		long elapsed = System.nanoTime() - start;
+		
+		if (read != flowspaces.size() * 4 + specifications.size()) {
+			throw new IllegalStateException("Some elements haven't been read");
+		}
+		
+		return elapsed;
+	}
+	
+	private static void benchmarkMapper(int nodes, int rounds) throws Exception
+	{
+		Path storeDir = Files.createTempDirectory("nffg-benchmark");
+		GraphDatabaseService graphDB = new GraphDatabaseFactory().newEmbeddedDatabase(storeDir.toFile());
+		List<Node> flowspaces = new ArrayList<Node>();
+		List<Node> specifications = new ArrayList<Node>();
+		Nffg graph = chainGraph(1);
+		EpType.Flowspace efs = graph.getEndpoints().getEndpoint().get(0).getFlowspace();
+		SpecType st = graph.getNetworkFunctions().getNetworkFunction().get(0).getSpecification();
+		
+		efs.setMac(obFactory.createFlowrulesTypeFlowspaceMac());
+		efs.getMac().setSrc("00:00:00:00:00:01");
+		efs.getMac().setDst("00:00:00:00:00:02");
+		efs.getMac().setEthertype(2048);
+		efs.getMac().setVlanId(10);
+		efs.getMac().setVlanPcp(1);
+		efs.setIp(obFactory.createFlowrulesTypeFlowspaceIp());
+		efs.getIp().setSrc("10.0.0.1");
+		efs.getIp().setDst("10.0.0.2");
+		efs.getIp().setIpProtocol((short) 6);
+		efs.getIp().setTos((short) 0);
+		efs.setTcp(obFactory.createFlowrulesTypeFlowspaceTcp());
+		efs.getTcp().setSrc(1024);
+		efs.getTcp().setDst(80);
+		efs.setUdp(obFactory.createFlowrulesTypeFlowspaceUdp());
+		efs.getUdp().setSrc(1024);
+		efs.getUdp().setDst(53);
+		st.getDeployment().setType("KVM");
+		st.getImage().setUri("http://images/firewall");
+		st.getCpu().setModel("Xeon");
+		st.getCpu().setArchitecture("x86_64");
+		st.getCpu().setNumCores((short) 4);
+		st.getCpu().setClockSpeed("2.4GHz");
+		st.getMemory().setType("DDR4");
+		st.getMemory().setSize("4GB");
+		st.getStorage().setType("SSD");
+		st.getStorage().setSize("20GB");
+		
+		try
+		{
+			for (int created = 0; created < nodes; )
+			{
+				try (Transaction tx = graphDB.beginTx())
+				{
+					for (int i = 0; i < 10000 && created < nodes; i++, created++)
+					{
+						Node fsNode = graphDB.createNode(Neo4jLibrary.NodeType.Flowspace);
+						fsNode.setProperty("nffgId", "nffg_0");
+						fsNode.setProperty("ingPhysPort", efs.getIngPhysPort());
+						PropertyMapper.MAC.write(efs.getMac(), fsNode);
+						PropertyMapper.IP.write(efs.getIp(), fsNode);
+						PropertyMapper.TCP.write(efs.getTcp(), fsNode);
+						PropertyMapper.UDP.write(efs.getUdp(), fsNode);
+						flowspaces.add(fsNode);
+						
+						Node spNode = graphDB.createNode(Neo4jLibrary.NodeType.Specification);
+						spNode.setProperty("nffgId", "nffg_0");
+						PropertyMapper.SPECIFICATION.write(st, spNode);
+						specifications.add(spNode);
+					}
+					
+					tx.success();
+				}
+			}
+			
+			// Warm up, so that the first measure doesn't pay for loading the store and compiling the code.
+			measureMapper(graphDB, flowspaces, specifications, true);
+			measureMapper(graphDB, flowspaces, specifications, false);
+			
+			for (int r = 0; r < rounds; r++)
+			{
+				long legacy = measureMapper(graphDB, flowspaces, specifications, true);
+				long mapped = measureMapper(graphDB, flowspaces, specifications, false);
+				System.out.println("round: " + r + ", nodes: " + (nodes * 2) + ", hasProperty/getProperty: " + 
+								   (legacy / (nodes * 2)) + " ns/node, mapper: " + (mapped / (nodes * 2)) + " ns/node (speedup " + 
+								   String.format("%.2f", (double) legacy / mapped) + ")");
+			}
+		}
+		finally
+		{
+			graphDB.shutdown();
+			deleteRecursively(storeDir);
+		}
+	}
+	
+	private static void deleteRecursively(Path dir) throws IOException
+	{
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>()
+		{
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
+			{
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+			
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException
+			{
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+	
+	public static void main(String[] params)
+	{
+		if (params.length == 3 && params[0].equals("-mapper"))
+		{
+			try
+			{
+				benchmarkMapper(Integer.parseInt(params[1]), Integer.parseInt(params[2]));
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace();
+				System.exit(1);
+			}
+			
+			System.exit(0);
+		}
+		
+		if (params.length < 4 || (!params[0].equals("-create") && !params[0].equals("-retrieve")))
+		{
+			System.err.println("Usage: java " + NffgBenchmark.class.getCanonicalName() + " -create graphs networkFunctions threads...");
+			System.err.println("       java " + NffgBenchmark.class.getCanonicalName() + " -retrieve graphs networkFunctions parallelism...");
+			System.err.println("       java " + NffgBenchmark.class.getCanonicalName() + " -mapper nodes rounds");
+			System.exit(1);
+		}
+		
+		try
+		{
+			int graphs = Integer.parseInt(params[1]);
+			int networkFunctions = Integer.parseInt(params[2]);
+			
+			if (params[0].equals("-retrieve"))
+			{
+				int[] parallelisms = new int[params.length - 3];
+				
+				for (int i = 3; i < params.length; i++)
+				{
+					parallelisms[i - 3] = Integer.parseInt(params[i]);
+				}
+				
+				benchmarkRetrieve(graphs, networkFunctions, parallelisms);
+			}
+			else
+			{
+				// Warm up, so that the first measure doesn't pay for the start of the database.
+				benchmarkCreate(Math.min(graphs, 100), networkFunctions, 1);
+				
+				for (int i = 3; i < params.length; i++)
+				{
+					benchmarkCreate(graphs, networkFunctions, Integer.parseInt(params[i]));
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+		
+		System.exit(0);
+	}
+}
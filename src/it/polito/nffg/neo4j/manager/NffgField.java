@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The sections of a graph that can be requested by a projection (the fields parameter of the graph resources). 
+ * A section that isn't requested is neither read from the database nor included in the graph: the containers 
+ * of the top-level sections are left null, and so are the parts of the network functions and of the network elements.
+ * The id and the version of a graph, and the ids and types of its network functions and network elements, 
+ * are always included.
+ */
+public enum NffgField
+{
+	ENDPOINTS("endpoints", null),
+	NETWORK_FUNCTIONS("network_functions", null),
+	NETWORK_ELEMENTS("network_elements", null),
+	MONITORING_PARAMETERS("monitoring_parameters", null),
+	NF_SPECIFICATION("specification", NETWORK_FUNCTIONS),
+	NF_CONNECTION_POINTS("connection_points", NETWORK_FUNCTIONS),
+	NF_CONTROL_INTERFACES("control_interfaces", NETWORK_FUNCTIONS),
+	NF_MONITORING_PARAMETERS("monitoring_parameters", NETWORK_FUNCTIONS),
+	NE_EPS_CPS("eps-cps", NETWORK_ELEMENTS),
+	NE_MONITORING_PARAMETERS("monitoring_parameters", NETWORK_ELEMENTS);
+	
+	/**
+	 * All the sections, i.e. the whole graph.
+	 */
+	public static final Set<NffgField> ALL = Collections.unmodifiableSet(EnumSet.allOf(NffgField.class));
+	
+	private final String name;
+	private final NffgField parent;
+	
+	private NffgField(String name, NffgField parent)
+	{
+		this.name = (parent == null) ? name : parent.name + "." + name;
+		this.parent = parent;
+	}
+	
+	/**
+	 * @return the name of the section, as it's written in the fields parameter 
+	 * (the parts of a network function or of a network element are prefixed by the name of their section and a dot).
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Parse a comma separated list of section names. A top-level section includes all its parts, 
+	 * and a part includes its section (without the other parts of it, unless they are listed as well).
+	 * 
+	 * @param fields the list of names, e.g. 'endpoints,network_functions.connection_points'.
+	 * @return the sections to read.
+	 * @throws IllegalArgumentException if a name doesn't correspond to any section.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/util/Set.html">Set</a>
+	 */
+	public static Set<NffgField> parse(String fields)
+	{
+		Set<NffgField> result = EnumSet.noneOf(NffgField.class);
+		Set<NffgField> whole = EnumSet.noneOf(NffgField.class);
+		
+		for (String token : fields.split(","))
+		{
+			String name = token.trim();
+			NffgField field = null;
+			
+			if (name.isEmpty()) {
+				continue;
+			}
+			
+			for (NffgField f : values())
+			{
+				if (f.name.equals(name)) {
+					field = f;
+				}
+			}
+			
+			if (field == null) {
+				throw new IllegalArgumentException("'" + name + "' isn't a section of a graph");
+			}
+			
+			result.add(field);
+			
+			if (field.parent == null) {
+				whole.add(field);
+			}
+			else {
+				result.add(field.parent);
+			}
+		}
+		
+		for (NffgField f : values())
+		{
+			if (f.parent != null && whole.contains(f.parent)) {
+				result.add(f);
+			}
+		}
+		
+		return result;
+	}
+}
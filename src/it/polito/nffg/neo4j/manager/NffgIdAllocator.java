@@ -0,0 +1,305 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.NodeType;
+
+/**
+ * Allocator of the graph ids (the N of 'nffg_N'). The ids in use are kept in a bitmap, whose length 
+ * is the high-water mark, together with the lowest id that may be free: allocating or releasing an id 
+ * takes constant (amortized) time, instead of scanning and sorting the ids of every Nffg node.
+ * An id is marked as used as soon as it is allocated, then it must be released if the transaction 
+ * that writes the graph is rolled back, or when the graph is deleted.
+ * The ids beyond DENSE_LIMIT (only a proposed id can be so high, unless the graphs are millions) 
+ * are kept in a set, so that a single huge id doesn't inflate the bitmap.
+ * The bitmap is saved into a sidecar file of the store on a clean shutdown and loaded at the next start.
+ * The file is deleted once loaded, so after a crash (or an offline load) the bitmap is rebuilt from the Nffg nodes.
+ */
+class NffgIdAllocator
+{
+	private static final int SNAPSHOT_VERSION = 1;
+	private static final int DENSE_LIMIT = 1 << 24;
+	private static Logger logger = Logger.getLogger(NffgIdAllocator.class.getCanonicalName());
+	
+	private final BitSet usedIds;
+	private final TreeSet<Integer> sparseIds;
+	private int lowestFree;
+	
+	private NffgIdAllocator(BitSet usedIds, TreeSet<Integer> sparseIds)
+	{
+		this.usedIds = usedIds;
+		this.sparseIds = sparseIds;
+		this.lowestFree = nextFree(0);
+	}
+	
+	/**
+	 * @param storeDir the directory of the store.
+	 * @return the sidecar file where the bitmap of the store is saved.
+	 */
+	static File snapshotFile(File storeDir)
+	{
+		return new File(storeDir.getPath() + ".ids");
+	}
+	
+	/**
+	 * Creates the allocator of a store, from the sidecar file if it exists, otherwise from the Nffg nodes.
+	 * 
+	 * @param graphDB the database.
+	 * @param storeDir the directory of the store.
+	 * @return the allocator.
+	 */
+	static NffgIdAllocator open(GraphDatabaseService graphDB, File storeDir)
+	{
+		File snapshot = snapshotFile(storeDir);
+		
+		if (snapshot.exists())
+		{
+			try
+			{
+				return load(snapshot);
+			}
+			catch (IOException e)
+			{
+				logger.log(Level.WARNING, "The snapshot of the graph ids can't be read, the ids are rebuilt from the database", e);
+			}
+			finally
+			{
+				snapshot.delete();
+			}
+		}
+		
+		return rebuild(graphDB);
+	}
+	
+	/**
+	 * Creates the allocator scanning the Nffg nodes of the database.
+	 * 
+	 * @param graphDB the database.
+	 * @return the allocator.
+	 */
+	static NffgIdAllocator rebuild(GraphDatabaseService graphDB)
+	{
+		NffgIdAllocator allocator = new NffgIdAllocator(new BitSet(), new TreeSet<Integer>());
+		
+		try (Transaction tx = graphDB.beginTx(); ResourceIterator<Node> nodes = graphDB.findNodes(NodeType.Nffg))
+		{
+			while (nodes.hasNext())
+			{
+				allocator.allocate((String) nodes.next().getProperty("id"));
+			}
+			
+			tx.success();
+		}
+		
+		return allocator;
+	}
+	
+	private static NffgIdAllocator load(File snapshot) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot))))
+		{
+			if (in.readInt() != SNAPSHOT_VERSION) {
+				throw new IOException("Unknown version of " + snapshot);
+			}
+			
+			long[] words = new long[in.readInt()];
+			TreeSet<Integer> sparseIds = new TreeSet<Integer>();
+			
+			for (int i = 0; i < words.length; i++)
+			{
+				words[i] = in.readLong();
+			}
+			
+			for (int n = in.readInt(); n > 0; n--)
+			{
+				sparseIds.add(in.readInt());
+			}
+			
+			return new NffgIdAllocator(BitSet.valueOf(words), sparseIds);
+		}
+	}
+	
+	/**
+	 * Saves the bitmap into the sidecar file of the store.
+	 * 
+	 * @param storeDir the directory of the store.
+	 * @throws IOException if the file can't be written.
+	 */
+	synchronized void save(File storeDir) throws IOException
+	{
+		long[] words = usedIds.toLongArray();
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshotFile(storeDir)))))
+		{
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeInt(words.length);
+			
+			for (long word : words)
+			{
+				out.writeLong(word);
+			}
+			
+			out.writeInt(sparseIds.size());
+			
+			for (int id : sparseIds)
+			{
+				out.writeInt(id);
+			}
+		}
+	}
+	
+	/**
+	 * @param nffgId an id in the form 'nffg_N'.
+	 * @return N.
+	 */
+	static int toNumber(String nffgId)
+	{
+		return Integer.parseInt(nffgId.substring("nffg_".length()));
+	}
+	
+	/**
+	 * Allocates the proposed id if it is free, otherwise the lowest free id.
+	 * 
+	 * @param proposedId the id proposed by the client (in the form 'nffg_N'), or null.
+	 * @return the number of the allocated id.
+	 */
+	synchronized int allocate(String proposedId)
+	{
+		int id = lowestFree;
+		
+		if (proposedId != null && !isUsed(toNumber(proposedId))) {
+			id = toNumber(proposedId);
+		}
+		
+		if (id < DENSE_LIMIT) {
+			usedIds.set(id);
+		}
+		else {
+			sparseIds.add(id);
+		}
+		
+		if (id == lowestFree) {
+			lowestFree = nextFree(id + 1);
+		}
+		
+		return id;
+	}
+	
+	private int nextFree(int from)
+	{
+		int id = usedIds.nextClearBit(from);
+		
+		while (id >= DENSE_LIMIT && sparseIds.contains(id))
+		{
+			id++;
+		}
+		
+		return id;
+	}
+	
+	/**
+	 * Marks an id as free.
+	 * 
+	 * @param id the number of the id.
+	 */
+	synchronized void release(int id)
+	{
+		if (id < DENSE_LIMIT) {
+			usedIds.clear(id);
+		}
+		else {
+			sparseIds.remove(id);
+		}
+		
+		if (id < lowestFree) {
+			lowestFree = id;
+		}
+	}
+	
+	/**
+	 * Returns the ids in use that follow a given one, in ascending order. The bitmap is scanned 
+	 * from the given id, so the cost doesn't depend on how many ids precede it.
+	 * 
+	 * @param after the number of the id to start after (-1 to start from the lowest id).
+	 * @param count the max number of ids to return.
+	 * @return the numbers of the ids.
+	 */
+	synchronized List<Integer> usedAfter(int after, int count)
+	{
+		List<Integer> ids = new ArrayList<Integer>();
+		
+		for (int id = usedIds.nextSetBit(after + 1); id >= 0 && ids.size() < count; id = usedIds.nextSetBit(id + 1))
+		{
+			ids.add(id);
+		}
+		
+		for (Integer id : sparseIds.tailSet(after, false))
+		{
+			if (ids.size() == count) {
+				break;
+			}
+			
+			ids.add(id);
+		}
+		
+		return ids;
+	}
+	
+	/**
+	 * Marks every id as free.
+	 */
+	synchronized void releaseAll()
+	{
+		usedIds.clear();
+		sparseIds.clear();
+		lowestFree = 0;
+	}
+	
+	/**
+	 * @param id the number of the id.
+	 * @return true if the id is allocated.
+	 */
+	synchronized boolean isUsed(int id)
+	{
+		return (id < DENSE_LIMIT) ? usedIds.get(id) : sparseIds.contains(id);
+	}
+}
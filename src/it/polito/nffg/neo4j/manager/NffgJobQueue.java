@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.GregorianCalendar;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import it.polito.nffg.neo4j.config.Neo4jApplication;
+import it.polito.nffg.neo4j.exceptions.MyConstraintViolationException;
+import it.polito.nffg.neo4j.exceptions.MyGenericException;
+import it.polito.nffg.neo4j.jaxb.Job;
+import it.polito.nffg.neo4j.jaxb.Nffg;
+import it.polito.nffg.neo4j.jaxb.ObjectFactory;
+
+/**
+ * The NffgJobQueue is an enumeration with only one possible value, then is a natural singleton.
+ * It creates graphs asynchronously: a graph is validated and queued by the request thread, 
+ * then a bounded pool of writer threads saves it through the Neo4jLibrary.
+ * The queue is bounded as well (property asyncQueueCapacity), so when it is full the creation is refused
+ * and the client is asked to retry later. The outcome of the last jobs (property asyncJobHistory) is kept in memory.
+ */
+public enum NffgJobQueue
+{
+	instance;
+	
+	private Properties pr = Neo4jApplication.PropCache.getProp();
+	private final int jobHistory = Integer.parseInt(pr.getProperty("asyncJobHistory", "10000"));
+	private final String retryAfter = pr.getProperty("asyncRetryAfter", "1");
+	private final ThreadPoolExecutor writers;
+	private final AtomicLong lastJobId = new AtomicLong();
+	private final ConcurrentHashMap<String, NffgJob> jobs = new ConcurrentHashMap<String, NffgJob>();
+	private final Queue<String> finishedJobs = new ConcurrentLinkedQueue<String>();
+	private final AtomicInteger finishedJobsCount = new AtomicInteger();
+	private final ObjectFactory obFactory = new ObjectFactory();
+	private static Logger logger = Logger.getLogger(NffgJobQueue.class.getCanonicalName());
+	
+	private NffgJobQueue()
+	{
+		int threads = Integer.parseInt(pr.getProperty("asyncWriterThreads", "4"));
+		int capacity = Integer.parseInt(pr.getProperty("asyncQueueCapacity", "1000"));
+		
+		writers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(capacity), 
+			new ThreadFactory()
+			{
+				private final AtomicInteger count = new AtomicInteger();
+				
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, "nffg-writer-" + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		
+		// The queued graphs are saved before the database is closed and the snapshot of the ids is written.
+		Neo4jLibrary.instance.addShutdownTask(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				writers.shutdown();
+				
+				try
+				{
+					if (!writers.awaitTermination(Neo4jLibrary.WRITERS_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS))
+					{
+						logger.log(Level.WARNING, "The queued graphs haven't been saved within " + Neo4jLibrary.WRITERS_SHUTDOWN_TIMEOUT + " ms");
+					}
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * State of a job, updated by the writer thread and read by the request threads.
+	 */
+	private static class NffgJob
+	{
+		final String id;
+		final long submitted = System.currentTimeMillis();
+		volatile String status = "queued";
+		volatile Integer graphId;
+		volatile String message;
+		volatile long started, completed;
+		
+		NffgJob(String id)
+		{
+			this.id = id;
+		}
+	}
+	
+	/**
+	 * Validate a graph and queue its creation.
+	 * 
+	 * @param graph the Network Function Forwarding Graph we want to save into the database.
+	 * @return the id of the job, or null if the queue is full.
+	 * @throws MyConstraintViolationException if the graph can't be saved.
+	 * @see Nffg
+	 * @see MyConstraintViolationException
+	 */
+	public String submit(final Nffg graph) throws MyConstraintViolationException
+	{
+		NffgWriter.validate(graph);
+		
+		final NffgJob job = new NffgJob(String.valueOf(lastJobId.incrementAndGet()));
+		jobs.put(job.id, job);
+		
+		try
+		{
+			writers.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					execute(job, graph);
+				}
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			jobs.remove(job.id);
+			return null;
+		}
+		
+		return job.id;
+	}
+	
+	private void execute(NffgJob job, Nffg graph)
+	{
+		String status = "failed";
+		job.started = System.currentTimeMillis();
+		job.status = "running";
+		
+		try
+		{
+			job.graphId = Neo4jLibrary.instance.createNffg(graph);
+			status = "completed";
+		}
+		catch (MyGenericException mge)
+		{
+			job.message = mge.getMessage();
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, "Job " + job.id + " failed", e);
+			job.message = "Internal Server Error";
+		}
+		finally
+		{
+			// The status is written last, so a reader that sees it final also sees the other fields.
+			job.completed = System.currentTimeMillis();
+			job.status = status;
+			finishedJobs.add(job.id);
+			
+			// Only the last finished jobs are remembered.
+			if (finishedJobsCount.incrementAndGet() > jobHistory)
+			{
+				jobs.remove(finishedJobs.poll());
+				finishedJobsCount.decrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * Get the number of seconds a client should wait before submitting again a graph refused because the queue was full.
+	 * 
+	 * @return the value for the Retry-After header.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 */
+	public String getRetryAfter()
+	{
+		return retryAfter;
+	}
+	
+	static XMLGregorianCalendar toCalendar(long millis)
+	{
+		GregorianCalendar gc = new GregorianCalendar();
+		gc.setTimeInMillis(millis);
+		
+		try
+		{
+			return DatatypeFactory.newInstance().newXMLGregorianCalendar(gc);
+		}
+		catch (DatatypeConfigurationException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Get the current state of a job.
+	 * 
+	 * @param id the id of the job.
+	 * @return the state of the job, or null if there is no job whose id is equal to the passed one.
+	 * @see Job
+	 */
+	public Job getJob(String id)
+	{
+		NffgJob job = jobs.get(id);
+		
+		if (job == null) {
+			return null;
+		}
+		
+		Job result = obFactory.createJob();
+		result.setId(job.id);
+		result.setSubmitted(toCalendar(job.submitted));
+		
+		// The status is read first: when it is final, every other field has already been set.
+		result.setStatus(job.status);
+		
+		if (job.started != 0) {
+			result.setStarted(toCalendar(job.started));
+		}
+		
+		if (job.completed != 0) {
+			result.setCompleted(toCalendar(job.completed));
+		}
+		
+		if (job.graphId != null) {
+			result.setGraphId(job.graphId.toString());
+		}
+		
+		result.setMessage(job.message);
+		
+		return result;
+	}
+}
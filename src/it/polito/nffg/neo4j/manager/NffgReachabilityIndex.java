@@ -0,0 +1,693 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.Weigher;
+
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.NodeType;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.RelationType;
+
+/**
+ * Keeps, for each graph, the transitive closure of its PathRelationships, so that the reachability 
+ * between two nodes is a single test instead of a search.
+ * Every Pathable node of a graph gets a dense id; the strongly connected components of the graph are 
+ * computed (nodes in the same component reach the same nodes) and each component has a row of bits, 
+ * one for each node reachable from it following the relationships. The closure in the incoming direction 
+ * is the transpose of the outgoing one, then it's read from the row of the destination node, 
+ * while in both directions two nodes are reachable if they belong to the same weakly connected region.
+ * The nodes are looked up by their id within the graph, so a check doesn't need any other access to the database 
+ * than the one to the Nffg node. A closure is built the first time a graph is checked and is bound to the revision of the graph, 
+ * so it's built again, lazily, after the graph has been changed or the server has been restarted.
+ * The same nodes and relationships are used to compute the reachability matrix between all the pairs of nodes of a graph.
+ * The index is bounded by the total size of the closures (property reachabilityIndexBytes, 0 disables it) 
+ * and evicts the least recently used ones.
+ */
+class NffgReachabilityIndex
+{
+	private final long capacity;
+	private final ConcurrentLinkedHashMap<String, Closure> closures;
+	
+	NffgReachabilityIndex(long capacity)
+	{
+		this.capacity = capacity;
+		closures = new ConcurrentLinkedHashMap.Builder<String, Closure>()
+			.maximumWeightedCapacity(Math.max(capacity, 1))
+			.weigher(new Weigher<Closure>()
+			{
+				@Override
+				public int weightOf(Closure value)
+				{
+					return value.weight;
+				}
+			})
+			.build();
+	}
+	
+	/**
+	 * The Pathable nodes of a graph, with their dense ids, and the PathRelationships between them.
+	 */
+	static class Topology
+	{
+		final Map<String, Integer> ids = new HashMap<String, Integer>();
+		final String[] names;
+		final boolean[] endpoints;
+		final int[][] adjacency;
+		
+		private Topology(List<Node> nodes, int[][] adjacency)
+		{
+			this.names = new String[nodes.size()];
+			this.endpoints = new boolean[nodes.size()];
+			this.adjacency = adjacency;
+			
+			for (int i = 0; i < names.length; i++)
+			{
+				names[i] = (String) nodes.get(i).getProperty("id");
+				endpoints[i] = nodes.get(i).hasLabel(NodeType.Endpoint);
+				ids.put(names[i], i);
+			}
+		}
+		
+		/**
+		 * @param nodeId the id of an endpoint, a network function or a connection point of the graph.
+		 * @return the dense id of the node, or -1 if the graph has no such node.
+		 */
+		int idOf(String nodeId)
+		{
+			Integer id = ids.get(nodeId);
+			
+			return (id == null) ? -1 : id;
+		}
+		
+		/**
+		 * @param endpointsOnly true to select only the endpoints.
+		 * @return the dense ids of the selected nodes, in the order of the ids of the nodes.
+		 */
+		int[] select(boolean endpointsOnly)
+		{
+			List<String> selected = new ArrayList<String>();
+			
+			for (int i = 0; i < names.length; i++)
+			{
+				if (!endpointsOnly || endpoints[i]) {
+					selected.add(names[i]);
+				}
+			}
+			
+			Collections.sort(selected);
+			int[] nodes = new int[selected.size()];
+			
+			for (int i = 0; i < nodes.length; i++)
+			{
+				nodes[i] = ids.get(selected.get(i));
+			}
+			
+			return nodes;
+		}
+		
+		/**
+		 * @return an estimate of the heap taken by the map entries and the arrays.
+		 */
+		long bytes()
+		{
+			long bytes = 96L * names.length;
+			
+			for (int[] targets : adjacency)
+			{
+				bytes += 16L + 4L * targets.length;
+			}
+			
+			return bytes;
+		}
+	}
+	
+	/**
+	 * The transitive closure of the PathRelationships of a graph, at a given revision.
+	 */
+	static class Closure
+	{
+		final long revision;
+		final Topology topology;
+		private final int[] component;
+		private final long[][] rows;
+		private final int[] region;
+		private final int weight;
+		
+		private Closure(long revision, Topology topology, int[] component, long[][] rows, int[] region)
+		{
+			this.revision = revision;
+			this.topology = topology;
+			this.component = component;
+			this.rows = rows;
+			this.region = region;
+			
+			long bytes = topology.bytes() + 8L * component.length + 16L * rows.length;
+			
+			for (long[] row : rows)
+			{
+				bytes += 8L * row.length;
+			}
+			
+			this.weight = (int) Math.min(bytes, Integer.MAX_VALUE);
+		}
+		
+		/**
+		 * @param nodeId the id of an endpoint, a network function or a connection point of the graph.
+		 * @return the dense id of the node, or -1 if the graph has no such node.
+		 */
+		int idOf(String nodeId)
+		{
+			return topology.idOf(nodeId);
+		}
+		
+		/**
+		 * @param src the dense id of the source node.
+		 * @param dst the dense id of the destination node.
+		 * @param direction the direction of the relationships to follow.
+		 * @return true if there is a path from the source node to the destination one.
+		 */
+		boolean isReachable(int src, int dst, Direction direction)
+		{
+			if (src == dst) {
+				return true;
+			}
+			
+			switch (direction)
+			{
+				case OUTGOING:
+					return isSet(rows[component[src]], dst);
+				case INCOMING:
+					return isSet(rows[component[dst]], src);
+				default:
+					return region[src] == region[dst];
+			}
+		}
+		
+		private static boolean isSet(long[] row, int bit)
+		{
+			return (row[bit >>> 6] & (1L << bit)) != 0;
+		}
+	}
+	
+	/**
+	 * @return true if the index is enabled (property reachabilityIndexBytes greater than 0).
+	 */
+	boolean isEnabled()
+	{
+		return capacity > 0;
+	}
+	
+	/**
+	 * Return the closure of a graph, building it if it isn't in the index or if it has been built for 
+	 * a previous revision of the graph. It must be called within a transaction.
+	 * 
+	 * @param nffgNode the Nffg node of the graph.
+	 * @return the closure, or null if the index is disabled or the graph has no revision 
+	 * (it has been saved by a version of the service that didn't keep the revisions).
+	 */
+	Closure get(Node nffgNode)
+	{
+		Long revision = (Long) nffgNode.getProperty(NffgWriter.REVISION, null);
+		
+		if (!isEnabled() || revision == null) {
+			return null;
+		}
+		
+		String nffgId = (String) nffgNode.getProperty("id");
+		Closure closure = closures.get(nffgId);
+		
+		if (closure == null || closure.revision != revision)
+		{
+			closure = build(nffgNode, revision);
+			
+			if (closure.weight <= capacity) {
+				closures.put(nffgId, closure);
+			}
+		}
+		
+		return closure;
+	}
+	
+	/**
+	 * Remove the closure of a graph.
+	 * 
+	 * @param nffgId the id of the graph.
+	 */
+	void invalidate(String nffgId)
+	{
+		closures.remove(nffgId);
+	}
+	
+	/**
+	 * Remove the closures of all graphs.
+	 */
+	void invalidateAll()
+	{
+		closures.clear();
+	}
+	
+	/**
+	 * Read the topology of a graph: the Pathable nodes are the endpoints and the network functions of the graph, 
+	 * together with the connection points linked to them. It must be called within a transaction.
+	 */
+	static Topology load(Node nffgNode)
+	{
+		List<Node> nodes = new ArrayList<Node>();
+		Map<Long, Integer> dense = new HashMap<Long, Integer>();
+		
+		for (Relationship r : nffgNode.getRelationships(Direction.OUTGOING, RelationType.InfoRelationship))
+		{
+			Node node = r.getOtherNode(nffgNode);
+			
+			if (node.hasLabel(NodeType.Pathable) && dense.put(node.getId(), nodes.size()) == null) {
+				nodes.add(node);
+			}
+		}
+		
+		List<int[]> out = new ArrayList<int[]>();
+		
+		// The list grows while it's scanned, with the connection points met along the relationships.
+		for (int i = 0; i < nodes.size(); i++)
+		{
+			Node node = nodes.get(i);
+			List<Integer> targets = new ArrayList<Integer>();
+			
+			for (Relationship r : node.getRelationships(Direction.BOTH, RelationType.PathRelationship))
+			{
+				Node other = r.getOtherNode(node);
+				Integer id = dense.get(other.getId());
+				
+				if (id == null)
+				{
+					id = nodes.size();
+					dense.put(other.getId(), id);
+					nodes.add(other);
+				}
+				
+				if (r.getStartNode().equals(node)) {
+					targets.add(id);
+				}
+			}
+			
+			int[] row = new int[targets.size()];
+			
+			for (int j = 0; j < row.length; j++)
+			{
+				row[j] = targets.get(j);
+			}
+			
+			out.add(row);
+		}
+		
+		return new Topology(nodes, out.toArray(new int[out.size()][]));
+	}
+	
+	/**
+	 * Build the closure of a graph. It must be called within a transaction.
+	 */
+	static Closure build(Node nffgNode, long revision)
+	{
+		Topology topology = load(nffgNode);
+		int[] component = new int[topology.adjacency.length];
+		long[][] rows = closeComponents(topology.adjacency, component);
+		
+		return new Closure(revision, topology, component, rows, regions(topology.adjacency));
+	}
+	
+	/**
+	 * Read the reachability from a range of the selected nodes of a graph to all the selected nodes from its closure.
+	 * 
+	 * @param closure the closure of the graph.
+	 * @param nodes the dense ids of the selected nodes.
+	 * @param direction the direction of the relationships to follow.
+	 * @param from the index of the first selected node of the range.
+	 * @param to the index after the last selected node of the range.
+	 * @return for each selected node of the range, the bits of the selected nodes reachable from it.
+	 */
+	static long[][] matrix(Closure closure, int[] nodes, Direction direction, int from, int to)
+	{
+		long[][] matrix = new long[to - from][(nodes.length + 63) >>> 6];
+		
+		for (int i = from; i < to; i++)
+		{
+			for (int j = 0; j < nodes.length; j++)
+			{
+				if (closure.isReachable(nodes[i], nodes[j], direction)) {
+					matrix[i - from][j >>> 6] |= 1L << j;
+				}
+			}
+		}
+		
+		return matrix;
+	}
+	
+	/**
+	 * Compute the reachability from a range of the selected nodes of a graph without its closure: 
+	 * the selected nodes are taken 64 at a time and each group is searched by a single breadth-first visit, 
+	 * where every node keeps a word with a bit for each source of the group that has reached it 
+	 * and the frontier is propagated with bitwise operations. The groups are searched by the threads of the pool.
+	 * 
+	 * @param adjacency the targets of each node, following the relationships in the direction of the search 
+	 * (see {@link #orient(int[][], Direction)}).
+	 * @param nodes the dense ids of the selected nodes.
+	 * @param from the first group of 64 selected nodes of the range.
+	 * @param to the group after the last one of the range.
+	 * @param pool the pool that searches the groups, or null to search them one after the other.
+	 * @return for each selected node of the range, the bits of the selected nodes reachable from it.
+	 */
+	static long[][] matrix(int[][] adjacency, int[] nodes, int from, int to, ForkJoinPool pool)
+	{
+		long[][] matrix = new long[Math.min(to << 6, nodes.length) - (from << 6)][(nodes.length + 63) >>> 6];
+		SearchTask task = new SearchTask(adjacency, nodes, matrix, from, from, to);
+		
+		if (pool == null) {
+			task.compute();
+		}
+		else {
+			pool.invoke(task);
+		}
+		
+		return matrix;
+	}
+	
+	/**
+	 * Searches the groups of 64 sources in a range, splitting the range in halves until it holds a single group.
+	 */
+	private static class SearchTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private final int[][] adjacency;
+		private final int[] nodes;
+		private final long[][] matrix;
+		private final int base, from, to;
+		
+		/**
+		 * @param base the group of the first row of the matrix.
+		 */
+		SearchTask(int[][] adjacency, int[] nodes, long[][] matrix, int base, int from, int to)
+		{
+			this.adjacency = adjacency;
+			this.nodes = nodes;
+			this.matrix = matrix;
+			this.base = base;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute()
+		{
+			if (to - from > 1 && inForkJoinPool())
+			{
+				int middle = (from + to) >>> 1;
+				invokeAll(new SearchTask(adjacency, nodes, matrix, base, from, middle), new SearchTask(adjacency, nodes, matrix, base, middle, to));
+				return;
+			}
+			
+			for (int group = from; group < to; group++)
+			{
+				search(group);
+			}
+		}
+		
+		private void search(int group)
+		{
+			int first = group << 6, last = Math.min(first + 64, nodes.length);
+			long[] seen = new long[adjacency.length], frontier = new long[adjacency.length], next = new long[adjacency.length];
+			int[] current = new int[adjacency.length], following = new int[adjacency.length];
+			int size = 0;
+			
+			for (int b = first; b < last; b++)
+			{
+				if (frontier[nodes[b]] == 0) {
+					current[size++] = nodes[b];
+				}
+				
+				seen[nodes[b]] |= 1L << (b - first);
+				frontier[nodes[b]] |= 1L << (b - first);
+			}
+			
+			// Each level visits only the nodes whose word has changed in the previous one.
+			while (size > 0)
+			{
+				int nextSize = 0;
+				
+				for (int i = 0; i < size; i++)
+				{
+					int v = current[i];
+					
+					for (int w : adjacency[v])
+					{
+						long reached = frontier[v] & ~seen[w];
+						
+						if (reached != 0)
+						{
+							if (next[w] == 0) {
+								following[nextSize++] = w;
+							}
+							
+							seen[w] |= reached;
+							next[w] |= reached;
+						}
+					}
+					
+					frontier[v] = 0;
+				}
+				
+				long[] words = frontier;
+				frontier = next;
+				next = words;
+				int[] list = current;
+				current = following;
+				following = list;
+				size = nextSize;
+			}
+			
+			for (int j = 0; j < nodes.length; j++)
+			{
+				long sources = seen[nodes[j]];
+				
+				while (sources != 0)
+				{
+					int b = Long.numberOfTrailingZeros(sources);
+					matrix[first - (base << 6) + b][j >>> 6] |= 1L << j;
+					sources &= sources - 1;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the targets of each node following the relationships in the given direction.
+	 */
+	static int[][] orient(int[][] out, Direction direction)
+	{
+		if (direction == Direction.OUTGOING) {
+			return out;
+		}
+		
+		int[] degree = new int[out.length];
+		
+		for (int v = 0; v < out.length; v++)
+		{
+			degree[v] += (direction == Direction.BOTH) ? out[v].length : 0;
+			
+			for (int w : out[v])
+			{
+				degree[w]++;
+			}
+		}
+		
+		int[][] oriented = new int[out.length][];
+		
+		for (int v = 0; v < out.length; v++)
+		{
+			oriented[v] = new int[degree[v]];
+			degree[v] = 0;
+		}
+		
+		for (int v = 0; v < out.length; v++)
+		{
+			for (int w : out[v])
+			{
+				oriented[w][degree[w]++] = v;
+				
+				if (direction == Direction.BOTH) {
+					oriented[v][degree[v]++] = w;
+				}
+			}
+		}
+		
+		return oriented;
+	}
+	
+	/**
+	 * Find the strongly connected components with the algorithm of Tarjan (without recursion, since a chain 
+	 * can be as long as the graph) and compute the row of each component as soon as it's found: 
+	 * the components are found in reverse topological order, so the rows of the components reachable 
+	 * from a new one are already complete.
+	 * 
+	 * @param adjacency the targets of the outgoing relationships of each node.
+	 * @param component filled with the component of each node.
+	 * @return the row of each component.
+	 */
+	private static long[][] closeComponents(int[][] adjacency, int[] component)
+	{
+		int n = adjacency.length, words = (n + 63) >>> 6, counter = 0, sp = 0, csp = 0;
+		int[] index = new int[n], low = new int[n], stack = new int[n], calls = new int[n], next = new int[n];
+		boolean[] onStack = new boolean[n];
+		List<long[]> rows = new ArrayList<long[]>();
+		Arrays.fill(index, -1);
+		
+		for (int root = 0; root < n; root++)
+		{
+			if (index[root] != -1) {
+				continue;
+			}
+			
+			index[root] = low[root] = counter++;
+			stack[sp++] = root;
+			onStack[root] = true;
+			calls[csp] = root;
+			next[csp++] = 0;
+			
+			while (csp > 0)
+			{
+				int v = calls[csp - 1];
+				
+				if (next[csp - 1] < adjacency[v].length)
+				{
+					int w = adjacency[v][next[csp - 1]++];
+					
+					if (index[w] == -1)
+					{
+						index[w] = low[w] = counter++;
+						stack[sp++] = w;
+						onStack[w] = true;
+						calls[csp] = w;
+						next[csp++] = 0;
+					}
+					else if (onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					
+					continue;
+				}
+				
+				if (--csp > 0) {
+					low[calls[csp - 1]] = Math.min(low[calls[csp - 1]], low[v]);
+				}
+				
+				if (low[v] != index[v]) {
+					continue;
+				}
+				
+				int c = rows.size(), first = sp;
+				long[] row = new long[words];
+				
+				do
+				{
+					first--;
+					onStack[stack[first]] = false;
+					component[stack[first]] = c;
+					row[stack[first] >>> 6] |= 1L << stack[first];
+				}
+				while (stack[first] != v);
+				
+				for (int i = first; i < sp; i++)
+				{
+					for (int w : adjacency[stack[i]])
+					{
+						if (component[w] != c) {
+							orInto(row, rows.get(component[w]));
+						}
+					}
+				}
+				
+				sp = first;
+				rows.add(row);
+			}
+		}
+		
+		return rows.toArray(new long[rows.size()][]);
+	}
+	
+	private static void orInto(long[] row, long[] other)
+	{
+		for (int i = 0; i < row.length; i++)
+		{
+			row[i] |= other[i];
+		}
+	}
+	
+	/**
+	 * @return the weakly connected region of each node, found with a union-find over the relationships.
+	 */
+	private static int[] regions(int[][] adjacency)
+	{
+		int[] parent = new int[adjacency.length];
+		
+		for (int i = 0; i < parent.length; i++)
+		{
+			parent[i] = i;
+		}
+		
+		for (int v = 0; v < adjacency.length; v++)
+		{
+			for (int w : adjacency[v])
+			{
+				parent[find(parent, v)] = find(parent, w);
+			}
+		}
+		
+		for (int i = 0; i < parent.length; i++)
+		{
+			parent[i] = find(parent, i);
+		}
+		
+		return parent;
+	}
+	
+	private static int find(int[] parent, int i)
+	{
+		while (parent[i] != i)
+		{
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		
+		return i;
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.neo4j.graphdb.Direction;
+
+/**
+ * The reachability matrix of a graph, whose rows are computed while they are read: the topology 
+ * (and the closure, if the graph is in the {@link NffgReachabilityIndex}) is read from the database in advance, 
+ * then the rows are computed a group at a time and passed to a listener, so only the rows of a group are kept in memory. 
+ * Without the closure, a group holds 64 sources for each thread of the pool, that are searched together.
+ */
+public class NffgReachabilityMatrix
+{
+	/**
+	 * Receives the rows of the matrix, in the order of the nodes.
+	 */
+	public interface RowListener
+	{
+		/**
+		 * @param row a character for each node, '1' if the node is reachable from the one of the row, '0' otherwise.
+		 * @throws IOException if the row can't be used (e.g. because the client has gone away), to stop the computation.
+		 */
+		void row(String row) throws IOException;
+	}
+	
+	private final NffgReachabilityIndex.Topology topology;
+	private final NffgReachabilityIndex.Closure closure;
+	private final int[] nodes;
+	private final Direction direction;
+	private final ForkJoinPool pool;
+	
+	NffgReachabilityMatrix(NffgReachabilityIndex.Topology topology, NffgReachabilityIndex.Closure closure, int[] nodes, Direction direction, ForkJoinPool pool)
+	{
+		this.topology = topology;
+		this.closure = closure;
+		this.nodes = nodes;
+		this.direction = direction;
+		this.pool = pool;
+	}
+	
+	/**
+	 * @return the ids of the nodes of the matrix, in the order of the rows and of the characters of each row.
+	 */
+	public List<String> getNodes()
+	{
+		List<String> names = new ArrayList<String>(nodes.length);
+		
+		for (int node : nodes)
+		{
+			names.add(topology.names[node]);
+		}
+		
+		return names;
+	}
+	
+	/**
+	 * Compute the rows of the matrix and pass them to a listener. The database isn't accessed.
+	 * 
+	 * @param listener the listener that receives the rows.
+	 * @throws IOException if the listener fails.
+	 */
+	public void rows(RowListener listener) throws IOException
+	{
+		int groups = (nodes.length + 63) >>> 6;
+		int step = (closure != null || pool == null) ? 1 : pool.getParallelism();
+		int[][] adjacency = (closure != null) ? null : NffgReachabilityIndex.orient(topology.adjacency, direction);
+		char[] row = new char[nodes.length];
+		
+		for (int group = 0; group < groups; group += step)
+		{
+			int last = Math.min(group + step, groups);
+			long[][] rows = (closure != null) ? NffgReachabilityIndex.matrix(closure, nodes, direction, group << 6, Math.min(last << 6, nodes.length)) : 
+												NffgReachabilityIndex.matrix(adjacency, nodes, group, last, pool);
+			
+			for (long[] bits : rows)
+			{
+				for (int j = 0; j < nodes.length; j++)
+				{
+					row[j] = ((bits[j >>> 6] & (1L << j)) != 0) ? '1' : '0';
+				}
+				
+				listener.row(new String(row));
+			}
+		}
+	}
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.EvictionListener;
+import com.googlecode.concurrentlinkedhashmap.Weigher;
+
+import it.polito.nffg.neo4j.config.Neo4jApplication;
+import it.polito.nffg.neo4j.jaxb.ObjectFactory;
+import it.polito.nffg.neo4j.jaxb.ResponseCache;
+
+/**
+ * The NffgResponseCache is an enumeration with only one possible value, then is a natural singleton.
+ * It keeps the serialized representations of the graphs, keyed by graph id and media type, 
+ * so that a graph read many times is retrieved and marshalled only once.
+ * The cache is bounded by the total size of the representations (property responseCacheBytes, 0 disables it) 
+ * and evicts the least recently used ones. The Neo4jLibrary invalidates the entries of a graph 
+ * after each committed change of it.
+ */
+public enum NffgResponseCache
+{
+	instance;
+	
+	private static final int STRIPES = 64;
+	
+	private Properties pr = Neo4jApplication.PropCache.getProp();
+	private final long capacity = Long.parseLong(pr.getProperty("responseCacheBytes", "0"));
+	private final ConcurrentLinkedHashMap<Key, Entry> entries;
+	private final Set<String> mediaTypes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong(), invalidations = new AtomicLong();
+	
+	private NffgResponseCache()
+	{
+		entries = new ConcurrentLinkedHashMap.Builder<Key, Entry>()
+			.maximumWeightedCapacity(Math.max(capacity, 1))
+			.weigher(new Weigher<Entry>()
+			{
+				@Override
+				public int weightOf(Entry value)
+				{
+					return Math.max(value.body.length, 1);
+				}
+			})
+			.listener(new EvictionListener<Key, Entry>()
+			{
+				@Override
+				public void onEviction(Key key, Entry value)
+				{
+					evictions.incrementAndGet();
+				}
+			})
+			.build();
+	}
+	
+	/**
+	 * Key of an entry: the id of a graph and the media type of its representation.
+	 */
+	private static class Key
+	{
+		final String nffgId;
+		final String mediaType;
+		
+		Key(String nffgId, String mediaType)
+		{
+			this.nffgId = nffgId;
+			this.mediaType = mediaType;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			
+			Key k = (Key) o;
+			return nffgId.equals(k.nffgId) && mediaType.equals(k.mediaType);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return 31 * nffgId.hashCode() + mediaType.hashCode();
+		}
+	}
+	
+	/**
+	 * Value of an entry: the serialized representation and the revision of the graph it was retrieved at.
+	 */
+	private static class Entry
+	{
+		final byte[] body;
+		final long revision;
+		
+		Entry(byte[] body, long revision)
+		{
+			this.body = body;
+			this.revision = revision;
+		}
+	}
+	
+	private static int stripe(String nffgId)
+	{
+		return (nffgId.hashCode() & 0x7fffffff) % STRIPES;
+	}
+	
+	/**
+	 * @return true if the cache is enabled (property responseCacheBytes greater than 0).
+	 */
+	public boolean isEnabled()
+	{
+		return capacity > 0;
+	}
+	
+	/**
+	 * Look up the representation of a graph at a given revision. 
+	 * The entries are invalidated only after the change has been committed, so an entry retrieved at another revision 
+	 * is still there for a while: it is a miss, otherwise a stale body would be sent with the entity tag of the new revision.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param mediaType the media type of the representation.
+	 * @param revision the revision of the graph the representation has to match, null if the graph doesn't exist.
+	 * @return the serialized representation, or null if it isn't cached.
+	 */
+	public byte[] get(String nffgId, String mediaType, Long revision)
+	{
+		Entry entry = entries.get(new Key(nffgId, mediaType));
+		
+		if (entry != null && revision != null && entry.revision == revision) {
+			hits.incrementAndGet();
+			return entry.body;
+		}
+		
+		misses.incrementAndGet();
+		return null;
+	}
+	
+	/**
+	 * Return the version of a graph, to be read before retrieving the graph that is going to be cached: 
+	 * the version changes every time the entries of the graph are invalidated.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @return the current version of the graph.
+	 */
+	public long version(String nffgId)
+	{
+		return versions.get(stripe(nffgId));
+	}
+	
+	/**
+	 * Cache the representation of a graph, unless the graph has been changed since its version has been read.
+	 * 
+	 * @param nffgId the id of the graph.
+	 * @param mediaType the media type of the representation.
+	 * @param body the serialized representation.
+	 * @param revision the revision of the graph read before retrieving it.
+	 * @param version the version of the graph read before retrieving it.
+	 */
+	public void put(String nffgId, String mediaType, byte[] body, long revision, long version)
+	{
+		if (!isEnabled() || body.length > capacity) {
+			return;
+		}
+		
+		Key key = new Key(nffgId, mediaType);
+		mediaTypes.add(mediaType);
+		Entry entry = new Entry(body, revision);
+		entries.put(key, entry);
+		
+		// A change committed meanwhile has already invalidated the graph, so the stale entry must not survive it.
+		if (versions.get(stripe(nffgId)) != version) {
+			entries.remove(key, entry);
+		}
+	}
+	
+	/**
+	 * Remove all the representations of a graph. It must be called after the change of the graph has been committed.
+	 * 
+	 * @param nffgId the id of the graph.
+	 */
+	public void invalidate(String nffgId)
+	{
+		if (!isEnabled()) {
+			return;
+		}
+		
+		versions.incrementAndGet(stripe(nffgId));
+		
+		for (String mediaType : mediaTypes)
+		{
+			if (entries.remove(new Key(nffgId, mediaType)) != null) {
+				invalidations.incrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * Remove the representations of all graphs.
+	 */
+	public void invalidateAll()
+	{
+		if (!isEnabled()) {
+			return;
+		}
+		
+		for (int i = 0; i < STRIPES; i++)
+		{
+			versions.incrementAndGet(i);
+		}
+		
+		invalidations.addAndGet(entries.size());
+		entries.clear();
+	}
+	
+	/**
+	 * @param obFactory the factory used to create the report.
+	 * @return the size of the cache and the number of hits, misses, evictions and invalidations since the start of the server.
+	 * @see ResponseCache
+	 */
+	public ResponseCache getStats(ObjectFactory obFactory)
+	{
+		ResponseCache stats = obFactory.createResponseCache();
+		stats.setEntries(entries.size());
+		stats.setBytes(entries.weightedSize());
+		stats.setCapacity(capacity);
+		stats.setHits(hits.get());
+		stats.setMisses(misses.get());
+		stats.setEvictions(evictions.get());
+		stats.setInvalidations(invalidations.get());
+		
+		return stats;
+	}
+}
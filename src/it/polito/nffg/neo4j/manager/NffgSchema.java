@@ -0,0 +1,292 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.schema.ConstraintDefinition;
+import org.neo4j.graphdb.schema.ConstraintType;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.graphdb.schema.Schema.IndexState;
+
+import it.polito.nffg.neo4j.jaxb.Indexes;
+import it.polito.nffg.neo4j.jaxb.ObjectFactory;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.NodeType;
+
+/**
+ * Schema (constraints and indexes) of the database used by the manager. 
+ * It is kept apart from the {@link Neo4jLibrary}, so that it can be applied also by the offline tools, 
+ * which must not start the library.
+ */
+final class NffgSchema
+{
+	private static Logger logger = Logger.getLogger(NffgSchema.class.getCanonicalName());
+	
+	/**
+	 * The labels of the nodes that are looked up by graph (the nodes of a graph have its id in the nffgId property).
+	 */
+	static final NodeType[] INDEXED_BY_NFFG_ID = { 
+		NodeType.Endpoint, NodeType.NetworkFunction, NodeType.ConnectionPoint, NodeType.CtrlInterface, NodeType.NetworkElement, 
+		NodeType.MonitoringParameter, NodeType.Flowspace, NodeType.Specification, NodeType.Flowrules, NodeType.Action 
+	};
+	
+	private NffgSchema()
+	{
+		
+	}
+	
+	private static boolean getConstraintExist(GraphDatabaseService graphDB, Label nodeType, String property)
+	{
+		for (ConstraintDefinition cd : graphDB.schema().getConstraints(nodeType))
+		{
+			if (cd.getConstraintType() == ConstraintType.UNIQUENESS)
+			{
+				for (String propertyKey : cd.getPropertyKeys())
+				{
+					if (propertyKey.equals(property))
+					{
+						return true;
+					}
+				}
+			}
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Creates the uniqueness constraints (and then the related indexes) required by the manager, if they don't exist yet.
+	 * 
+	 * @param graphDB the database to set up.
+	 */
+	static void createConstraints(GraphDatabaseService graphDB)
+	{
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			if (!getConstraintExist(graphDB, NodeType.Nffg, "id")) {
+				graphDB.schema().constraintFor(NodeType.Nffg).assertPropertyIsUnique("id").create();
+			}
+			
+			if (!getConstraintExist(graphDB, NodeType.Endpoint, "uniqueProp")) {
+				graphDB.schema().constraintFor(NodeType.Endpoint).assertPropertyIsUnique("uniqueProp").create();
+			}
+			
+			if (!getConstraintExist(graphDB, NodeType.NetworkFunction, "uniqueProp")) {
+				graphDB.schema().constraintFor(NodeType.NetworkFunction).assertPropertyIsUnique("uniqueProp").create();
+			}
+			
+			if (!getConstraintExist(graphDB, NodeType.NetworkElement, "uniqueProp")) {
+				graphDB.schema().constraintFor(NodeType.NetworkElement).assertPropertyIsUnique("uniqueProp").create();
+			}
+			
+			if (!getConstraintExist(graphDB, NodeType.ConnectionPoint, "uniqueProp")) {
+				graphDB.schema().constraintFor(NodeType.ConnectionPoint).assertPropertyIsUnique("uniqueProp").create();
+			}
+			
+			if (!getConstraintExist(graphDB, NodeType.CtrlInterface, "uniqueProp")) {
+				graphDB.schema().constraintFor(NodeType.CtrlInterface).assertPropertyIsUnique("uniqueProp").create();
+			}
+			
+			tx.success();
+		}
+		catch (Exception e)
+		{
+			tx.failure();
+			logger.log(Level.SEVERE, "The uniqueness constraints can't be created", e);
+		}
+		finally
+		{
+			tx.close();
+		}
+	}
+	
+	private static IndexDefinition getIndex(GraphDatabaseService graphDB, Label nodeType, String property)
+	{
+		for (IndexDefinition id : graphDB.schema().getIndexes(nodeType))
+		{
+			for (String propertyKey : id.getPropertyKeys())
+			{
+				if (propertyKey.equals(property))
+				{
+					return id;
+				}
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Creates the indexes on nffgId (the property that links every node to its graph) for the labels of the nodes 
+	 * looked up by graph, if they don't exist yet. A failed index is dropped and created again: the drop is committed 
+	 * on its own, because creating the same index in the transaction that drops it would just cancel the drop.
+	 * The new indexes are populated in background: see {@link #awaitIndexes(GraphDatabaseService, long)}.
+	 * 
+	 * @param graphDB the database to set up.
+	 */
+	static void createIndexes(GraphDatabaseService graphDB)
+	{
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			for (NodeType nodeType : INDEXED_BY_NFFG_ID)
+			{
+				IndexDefinition id = getIndex(graphDB, nodeType, "nffgId");
+				
+				if (id != null && graphDB.schema().getIndexState(id) == IndexState.FAILED)
+				{
+					logger.log(Level.WARNING, "The index on :{0}(nffgId) failed, it will be created again: {1}", 
+							   new Object[] { nodeType, graphDB.schema().getIndexFailure(id) });
+					id.drop();
+				}
+			}
+			
+			tx.success();
+		}
+		catch (Exception e)
+		{
+			tx.failure();
+			logger.log(Level.SEVERE, "The failed nffgId indexes can't be dropped", e);
+		}
+		finally
+		{
+			tx.close();
+		}
+		
+		tx = graphDB.beginTx();
+		
+		try
+		{
+			for (NodeType nodeType : INDEXED_BY_NFFG_ID)
+			{
+				if (getIndex(graphDB, nodeType, "nffgId") == null) {
+					graphDB.schema().indexFor(nodeType).on("nffgId").create();
+				}
+			}
+			
+			tx.success();
+		}
+		catch (Exception e)
+		{
+			tx.failure();
+			logger.log(Level.SEVERE, "The nffgId indexes can't be created", e);
+		}
+		finally
+		{
+			tx.close();
+		}
+	}
+	
+	/**
+	 * Waits until all the indexes are online, or the timeout expires: in the latter case the lookups 
+	 * work anyway (by scanning the labels) until the population of the indexes is over.
+	 * 
+	 * @param graphDB the database.
+	 * @param timeout the maximum number of seconds to wait.
+	 * @return true if all the indexes are online.
+	 */
+	static boolean awaitIndexes(GraphDatabaseService graphDB, long timeout)
+	{
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			graphDB.schema().awaitIndexesOnline(timeout, TimeUnit.SECONDS);
+			tx.success();
+			
+			return true;
+		}
+		catch (IllegalStateException e)
+		{
+			logger.log(Level.WARNING, "The indexes aren't online after " + timeout + " s", e);
+			
+			return false;
+		}
+		finally
+		{
+			tx.close();
+		}
+	}
+	
+	/**
+	 * Describes the state of every index of the database, the ones backing the uniqueness constraints included.
+	 * 
+	 * @param graphDB the database.
+	 * @param obFactory the factory of the JAXB objects.
+	 * @return the report.
+	 */
+	static Indexes report(GraphDatabaseService graphDB, ObjectFactory obFactory)
+	{
+		int online = 0, populating = 0, failed = 0;
+		Indexes indexes = obFactory.createIndexes();
+		Transaction tx = graphDB.beginTx();
+		
+		try
+		{
+			for (IndexDefinition id : graphDB.schema().getIndexes())
+			{
+				Indexes.Index index = obFactory.createIndexesIndex();
+				IndexState state = graphDB.schema().getIndexState(id);
+				index.setLabel(id.getLabel().name());
+				index.setProperty(id.getPropertyKeys().iterator().next());
+				index.setConstraint(id.isConstraintIndex());
+				index.setState(state.name());
+				
+				switch (state)
+				{
+					case ONLINE:
+						online++;
+						break;
+					case POPULATING:
+						populating++;
+						break;
+					default:
+						failed++;
+						index.setFailure(graphDB.schema().getIndexFailure(id));
+						break;
+				}
+				
+				indexes.getIndex().add(index);
+			}
+			
+			tx.success();
+		}
+		finally
+		{
+			tx.close();
+		}
+		
+		indexes.setOnline(online);
+		indexes.setPopulating(populating);
+		indexes.setFailed(failed);
+		
+		return indexes;
+	}
+}
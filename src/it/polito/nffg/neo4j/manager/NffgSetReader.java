@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import it.polito.nffg.neo4j.jaxb.Nffg;
+
+/**
+ * Reads a XML nffg-set document as a stream: the document is scanned with StAX and 
+ * each nffg element is unmarshalled on its own, only when it is requested.
+ * Then the memory needed doesn't depend on the size of the document, but only on the size of the largest graph.
+ */
+class NffgSetReader implements Closeable
+{
+	private static final String NFFG_NAMESPACE = "http://www.example.org/nffg/";
+	private static JAXBContext context;
+	
+	private final XMLStreamReader reader;
+	private final Unmarshaller unmarshaller;
+	
+	/**
+	 * @param in the document. The stream is not closed by the reader.
+	 * @throws JAXBException if the unmarshaller can't be created.
+	 * @throws XMLStreamException if the document can't be parsed.
+	 */
+	NffgSetReader(InputStream in) throws JAXBException, XMLStreamException
+	{
+		XMLInputFactory xif = XMLInputFactory.newInstance();
+		xif.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		xif.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		
+		reader = xif.createXMLStreamReader(in);
+		unmarshaller = getContext().createUnmarshaller();
+	}
+	
+	private static synchronized JAXBContext getContext() throws JAXBException
+	{
+		if (context == null) {
+			context = JAXBContext.newInstance(Nffg.class);
+		}
+		
+		return context;
+	}
+	
+	/**
+	 * Unmarshals the next graph of the document.
+	 * 
+	 * @return the graph, or null if the document has no more graphs.
+	 * @throws JAXBException if the graph can't be unmarshalled.
+	 * @throws XMLStreamException if the document can't be parsed.
+	 */
+	Nffg read() throws JAXBException, XMLStreamException
+	{
+		while (true)
+		{
+			// Every nested element of a graph is consumed by the unmarshaller, 
+			// so the only start elements met here are the root and the graphs.
+			if (reader.isStartElement() && reader.getLocalName().equals("nffg") && 
+				NFFG_NAMESPACE.equals(reader.getNamespaceURI()))
+			{
+				return unmarshaller.unmarshal(reader, Nffg.class).getValue();
+			}
+			
+			if (!reader.hasNext()) {
+				return null;
+			}
+			
+			reader.next();
+		}
+	}
+	
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			reader.close();
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.neo4j.graphalgo.GraphAlgoFactory;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.traversal.BranchState;
+
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.PathListener;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.RelationType;
+
+/**
+ * Finds the k shortest simple paths (no node is crossed twice) between two nodes, following their PathRelationships, 
+ * with Yen's algorithm. The first path is the shortest one; each next path is the shortest of the candidates 
+ * obtained by taking a prefix (the root) of the last path found and joining it to the shortest path from its last node 
+ * (the spur node) to the destination that avoids the nodes of the root and the relationships already followed 
+ * from the same root by the paths found. Every shortest path is searched by the bidirectional breadth-first search 
+ * of {@link GraphAlgoFactory#shortestPath(PathExpander, int)}, so a request costs about k times the length of the paths 
+ * searches, however many paths there are between the two nodes. The deadline is checked before each of these searches.
+ * Parallel relationships give the same path, then they are followed or avoided together.
+ */
+class NffgShortestPaths
+{
+	private final Direction direction;
+	private final int maxDepth;
+	
+	/**
+	 * @param direction the direction of the relationships that are followed.
+	 * @param maxDepth the maximum number of relationships of a path.
+	 */
+	NffgShortestPaths(Direction direction, int maxDepth)
+	{
+		this.direction = direction;
+		this.maxDepth = maxDepth;
+	}
+	
+	/**
+	 * Passes to the listener the k shortest paths from the source node to the destination one (less if there aren't k of them), 
+	 * the shortest first, as Strings like '(src)-->(node)<--(dst)'.
+	 * 
+	 * @param timeoutNanos the nanoseconds available for the search, or 0 if the search has no time limit.
+	 * @return true if the time available has been over before finding k paths (or all of them, if they are less).
+	 * @throws IOException if the listener fails.
+	 */
+	boolean find(Node srcNode, Node dstNode, int k, long timeoutNanos, PathListener listener) throws IOException
+	{
+		long start = System.nanoTime();
+		List<Route> found = new ArrayList<Route>();
+		PriorityQueue<Route> candidates = new PriorityQueue<Route>();
+		Set<String> seen = new HashSet<String>();
+		Set<Long> noIds = Collections.emptySet();
+		Route first = search(new Route(srcNode), srcNode, dstNode, noIds, noIds, maxDepth);
+		
+		if (first != null)
+		{
+			found.add(first);
+			seen.add(first.text);
+			listener.path(first.text);
+		}
+		
+		while (!found.isEmpty() && found.size() < k)
+		{
+			Route last = found.get(found.size() - 1);
+			
+			for (int i = 0; i < last.relationships.size(); i++)
+			{
+				if (timeoutNanos > 0 && System.nanoTime() - start > timeoutNanos) {
+					return true;
+				}
+				
+				Route root = last.prefix(i);
+				Node spurNode = last.nodes.get(i);
+				Set<Long> avoidedNodes = new HashSet<Long>(), avoidedRelationships = new HashSet<Long>();
+				
+				for (int j = 0; j < i; j++)
+				{
+					avoidedNodes.add(last.nodes.get(j).getId());
+				}
+				
+				for (Route r : found)
+				{
+					if (r.relationships.size() > i && r.startsWith(root))
+					{
+						avoidParallel(spurNode, r.relationships.get(i), avoidedRelationships);
+					}
+				}
+				
+				Route candidate = search(root, spurNode, dstNode, avoidedNodes, avoidedRelationships, maxDepth - i);
+				
+				if (candidate != null && seen.add(candidate.text))
+				{
+					candidates.add(candidate);
+				}
+			}
+			
+			if (candidates.isEmpty()) {
+				break;
+			}
+			
+			Route next = candidates.poll();
+			found.add(next);
+			listener.path(next.text);
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * @return the root joined to the shortest path from the spur node to the destination one, or null if there isn't any.
+	 */
+	private Route search(Route root, Node spurNode, Node dstNode, Set<Long> avoidedNodes, Set<Long> avoidedRelationships, int depth)
+	{
+		Path spur = GraphAlgoFactory.shortestPath(new AvoidingExpander(direction, avoidedNodes, avoidedRelationships), depth).findSinglePath(spurNode, dstNode);
+		
+		if (spur == null) {
+			return null;
+		}
+		
+		Route route = root.prefix(root.relationships.size());
+		
+		for (Relationship r : spur.relationships())
+		{
+			route.append(r);
+		}
+		
+		return route;
+	}
+	
+	private void avoidParallel(Node node, Relationship relationship, Set<Long> avoidedRelationships)
+	{
+		Node other = relationship.getOtherNode(node);
+		boolean forward = relationship.getStartNode().equals(node);
+		
+		for (Relationship r : node.getRelationships(direction, RelationType.PathRelationship))
+		{
+			if (r.getOtherNode(node).equals(other) && r.getStartNode().equals(node) == forward)
+			{
+				avoidedRelationships.add(r.getId());
+			}
+		}
+	}
+	
+	/**
+	 * Expands the PathRelationships in a direction, except the avoided ones and the ones that lead to an avoided node. 
+	 * The reverse expander (used by the search from the destination node) avoids the same ones.
+	 */
+	private static class AvoidingExpander implements PathExpander<Object>
+	{
+		private final Direction direction;
+		private final Set<Long> avoidedNodes;
+		private final Set<Long> avoidedRelationships;
+		
+		AvoidingExpander(Direction direction, Set<Long> avoidedNodes, Set<Long> avoidedRelationships)
+		{
+			this.direction = direction;
+			this.avoidedNodes = avoidedNodes;
+			this.avoidedRelationships = avoidedRelationships;
+		}
+		
+		@Override
+		public Iterable<Relationship> expand(Path path, BranchState<Object> state)
+		{
+			Node node = path.endNode();
+			List<Relationship> relationships = new ArrayList<Relationship>();
+			
+			for (Relationship r : node.getRelationships(direction, RelationType.PathRelationship))
+			{
+				if (!avoidedRelationships.contains(r.getId()) && !avoidedNodes.contains(r.getOtherNode(node).getId()))
+				{
+					relationships.add(r);
+				}
+			}
+			
+			return relationships;
+		}
+		
+		@Override
+		public PathExpander<Object> reverse()
+		{
+			return new AvoidingExpander(direction.reverse(), avoidedNodes, avoidedRelationships);
+		}
+	}
+	
+	/**
+	 * A path, with its nodes, its relationships and its representation, ordered by length and then by representation.
+	 */
+	private static class Route implements Comparable<Route>
+	{
+		final List<Node> nodes = new ArrayList<Node>();
+		final List<Relationship> relationships = new ArrayList<Relationship>();
+		String text;
+		
+		Route(Node start)
+		{
+			nodes.add(start);
+			text = "(" + start.getProperty("id", "") + ")";
+		}
+		
+		void append(Relationship r)
+		{
+			Node from = nodes.get(nodes.size() - 1), to = r.getOtherNode(from);
+			nodes.add(to);
+			relationships.add(r);
+			text += (r.getStartNode().equals(from) ? "-->(" : "<--(") + to.getProperty("id", "") + ")";
+		}
+		
+		/**
+		 * @return a new Route with the first length relationships of this one.
+		 */
+		Route prefix(int length)
+		{
+			Route route = new Route(nodes.get(0));
+			
+			for (int i = 0; i < length; i++)
+			{
+				route.append(relationships.get(i));
+			}
+			
+			return route;
+		}
+		
+		/**
+		 * @return true if this Route crosses the same nodes, in the same way, as the other one does at its beginning.
+		 */
+		boolean startsWith(Route other)
+		{
+			if (other.relationships.size() > relationships.size() || !nodes.get(0).equals(other.nodes.get(0))) {
+				return false;
+			}
+			
+			for (int i = 0; i < other.relationships.size(); i++)
+			{
+				if (!nodes.get(i + 1).equals(other.nodes.get(i + 1)) || isForward(i) != other.isForward(i)) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		private boolean isForward(int i)
+		{
+			return relationships.get(i).getStartNode().equals(nodes.get(i));
+		}
+		
+		@Override
+		public int compareTo(Route other)
+		{
+			int c = Integer.compare(relationships.size(), other.relationships.size());
+			return (c != 0) ? c : text.compareTo(other.text);
+		}
+	}
+}
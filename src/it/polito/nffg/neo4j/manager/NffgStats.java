@@ -0,0 +1,330 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import it.polito.nffg.neo4j.jaxb.Nffg;
+import it.polito.nffg.neo4j.jaxb.Summaries;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.NodeType;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.RelationType;
+
+/**
+ * Statistics of a graph, kept as properties of its Nffg node so that a graph can be summarized 
+ * without reading the rest of it: the number of endpoints, network functions, connection points, 
+ * network elements, flowrules and PathRelationships, the size of the values of the properties of its nodes 
+ * (strings in UTF-8) and the time of its creation.
+ * The statistics are counted by a {@link NffgWriter.Target} that wraps the one of the writer 
+ * (see {@link NffgWriter#counting(NffgStats)}), while the graph is written, so they correspond exactly 
+ * to the nodes and relationships it writes.
+ */
+class NffgStats
+{
+	/**
+	 * Property of the Nffg node with the time of creation of the graph, in milliseconds.
+	 */
+	static final String CREATED = "created";
+	
+	private static final String ENDPOINTS = "stats-endpoints", NETWORK_FUNCTIONS = "stats-networkFunctions", 
+								CONNECTION_POINTS = "stats-connectionPoints", NETWORK_ELEMENTS = "stats-networkElements", 
+								FLOWRULES = "stats-flowrules", PATHS = "stats-pathRelationships", BYTES = "stats-bytes";
+	
+	/**
+	 * The properties of the Nffg node that aren't part of the content of the graph.
+	 */
+	static final Set<String> PROPERTIES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+		CREATED, ENDPOINTS, NETWORK_FUNCTIONS, CONNECTION_POINTS, NETWORK_ELEMENTS, FLOWRULES, PATHS, BYTES)));
+	
+	private int endpoints, networkFunctions, connectionPoints, networkElements, flowrules, paths;
+	private long bytes;
+	
+	/**
+	 * Counts the statistics of a graph without writing it. It's used only by the Cypher based path, 
+	 * that doesn't write through the {@link NffgWriter}.
+	 * 
+	 * @param graph a graph, previously checked with {@link NffgWriter#validate(Nffg)}.
+	 * @param nffgId the id of the graph (in the form 'nffg_N').
+	 * @return the statistics of the graph.
+	 */
+	static NffgStats of(Nffg graph, String nffgId)
+	{
+		NffgStats stats = new NffgStats();
+		new NffgWriter<Object>(new NffgWriter.Target<Object>()
+		{
+			@Override
+			public Object createNode(Map<String, Object> properties, Label... labels)
+			{
+				return properties;
+			}
+			
+			@Override
+			public void createRelationship(Object from, Object to, RelationshipType type)
+			{
+				
+			}
+			
+			@Override
+			public void setProperties(Object node, Map<String, Object> properties)
+			{
+				
+			}
+		}).counting(stats).write(graph, nffgId, new HashMap<String, Object>());
+		
+		return stats;
+	}
+	
+	/**
+	 * Wraps a target, counting the nodes and relationships sent to it into these statistics.
+	 * 
+	 * @param target the target that receives the writes.
+	 * @return the counting target.
+	 */
+	<N> NffgWriter.Target<N> counting(final NffgWriter.Target<N> target)
+	{
+		return new NffgWriter.Target<N>()
+		{
+			@Override
+			public N createNode(Map<String, Object> properties, Label... labels)
+			{
+				count(properties, Arrays.asList(labels));
+				
+				return target.createNode(properties, labels);
+			}
+			
+			@Override
+			public void createRelationship(N from, N to, RelationshipType type)
+			{
+				count(type);
+				target.createRelationship(from, to, type);
+			}
+			
+			@Override
+			public void setProperties(N node, Map<String, Object> properties)
+			{
+				target.setProperties(node, properties);
+			}
+		};
+	}
+	
+	/**
+	 * Counts the statistics of a stored graph, visiting all the nodes connected to its Nffg node.
+	 * 
+	 * @param nffgNode the Nffg node of the graph.
+	 * @return the statistics of the graph.
+	 */
+	static NffgStats count(Node nffgNode)
+	{
+		NffgStats stats = new NffgStats();
+		Set<Node> visited = new HashSet<Node>();
+		Deque<Node> toVisit = new ArrayDeque<Node>();
+		toVisit.add(nffgNode);
+		
+		while (!toVisit.isEmpty())
+		{
+			Node n = toVisit.poll();
+			
+			if (!visited.add(n)) {
+				continue;
+			}
+			
+			stats.add(n);
+			
+			for (Relationship r : n.getRelationships())
+			{
+				// Each relationship is counted from its start node only.
+				if (r.getStartNode().equals(n)) {
+					stats.add(r);
+				}
+				
+				toVisit.add(r.getOtherNode(n));
+			}
+		}
+		
+		return stats;
+	}
+	
+	/**
+	 * @param nffgNode the Nffg node of a graph.
+	 * @return the statistics stored in the node, or null if the graph has been saved 
+	 * by a version of the service that didn't keep them.
+	 */
+	static NffgStats load(Node nffgNode)
+	{
+		if (!nffgNode.hasProperty(BYTES)) {
+			return null;
+		}
+		
+		NffgStats stats = new NffgStats();
+		stats.endpoints = (Integer) nffgNode.getProperty(ENDPOINTS);
+		stats.networkFunctions = (Integer) nffgNode.getProperty(NETWORK_FUNCTIONS);
+		stats.connectionPoints = (Integer) nffgNode.getProperty(CONNECTION_POINTS);
+		stats.networkElements = (Integer) nffgNode.getProperty(NETWORK_ELEMENTS);
+		stats.flowrules = (Integer) nffgNode.getProperty(FLOWRULES);
+		stats.paths = (Integer) nffgNode.getProperty(PATHS);
+		stats.bytes = (Long) nffgNode.getProperty(BYTES);
+		
+		return stats;
+	}
+	
+	/**
+	 * Puts the statistics into the properties of a Nffg node.
+	 */
+	void putInto(Map<String, Object> properties)
+	{
+		properties.put(ENDPOINTS, endpoints);
+		properties.put(NETWORK_FUNCTIONS, networkFunctions);
+		properties.put(CONNECTION_POINTS, connectionPoints);
+		properties.put(NETWORK_ELEMENTS, networkElements);
+		properties.put(FLOWRULES, flowrules);
+		properties.put(PATHS, paths);
+		properties.put(BYTES, bytes);
+	}
+	
+	void store(Node nffgNode)
+	{
+		Map<String, Object> properties = new HashMap<String, Object>();
+		putInto(properties);
+		
+		for (Map.Entry<String, Object> p : properties.entrySet())
+		{
+			nffgNode.setProperty(p.getKey(), p.getValue());
+		}
+	}
+	
+	/**
+	 * Adds (or subtracts, if sign is negative) the statistics of a part of a graph.
+	 */
+	void add(NffgStats other, int sign)
+	{
+		endpoints += sign * other.endpoints;
+		networkFunctions += sign * other.networkFunctions;
+		connectionPoints += sign * other.connectionPoints;
+		networkElements += sign * other.networkElements;
+		flowrules += sign * other.flowrules;
+		paths += sign * other.paths;
+		bytes += sign * other.bytes;
+	}
+	
+	/**
+	 * Counts a stored node (e.g. before it's deleted).
+	 */
+	void add(Node n)
+	{
+		count(n.getAllProperties(), n.getLabels());
+	}
+	
+	/**
+	 * Counts a stored relationship (e.g. before it's deleted).
+	 */
+	void add(Relationship r)
+	{
+		count(r.getType());
+	}
+	
+	void toSummary(Summaries.Graph summary)
+	{
+		summary.setEndpoints(endpoints);
+		summary.setNetworkFunctions(networkFunctions);
+		summary.setConnectionPoints(connectionPoints);
+		summary.setNetworkElements(networkElements);
+		summary.setFlowrules(flowrules);
+		summary.setPathRelationships(paths);
+		summary.setBytes(bytes);
+	}
+	
+	private void count(RelationshipType type)
+	{
+		if (type.name().equals(RelationType.PathRelationship.name())) {
+			paths++;
+		}
+	}
+	
+	private void count(Map<String, Object> properties, Iterable<Label> labels)
+	{
+		for (Label l : labels)
+		{
+			if (l.name().equals(NodeType.Nffg.name())) {
+				return;
+			}
+			else if (l.name().equals(NodeType.Endpoint.name())) {
+				endpoints++;
+			}
+			else if (l.name().equals(NodeType.NetworkFunction.name())) {
+				networkFunctions++;
+			}
+			else if (l.name().equals(NodeType.ConnectionPoint.name())) {
+				connectionPoints++;
+			}
+			else if (l.name().equals(NodeType.NetworkElement.name())) {
+				networkElements++;
+			}
+			else if (l.name().equals(NodeType.Flowrules.name())) {
+				flowrules++;
+			}
+		}
+		
+		for (Object value : properties.values())
+		{
+			bytes += sizeOf(value);
+		}
+	}
+	
+	private static long sizeOf(Object value)
+	{
+		long size = 0;
+		
+		if (value instanceof String) {
+			size = ((String) value).getBytes(StandardCharsets.UTF_8).length;
+		}
+		else if (value instanceof String[]) 
+		{
+			for (String s : (String[]) value)
+			{
+				size += s.getBytes(StandardCharsets.UTF_8).length;
+			}
+		}
+		else if (value instanceof Short) {
+			size = 2;
+		}
+		else if (value instanceof Integer) {
+			size = 4;
+		}
+		else {
+			size = 8;
+		}
+		
+		return size;
+	}
+}
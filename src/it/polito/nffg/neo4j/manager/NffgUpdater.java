@@ -0,0 +1,521 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+
+import it.polito.nffg.neo4j.jaxb.Nffg;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.NodeType;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.RelationType;
+
+/**
+ * Updates a stored graph by applying only the differences between it and a new version of the graph.
+ * The new version is built in memory by the {@link NffgWriter}, then compared with the stored nodes:
+ * <ul>
+ * <li>the elements (endpoints, network functions, connection points, control interfaces and network elements) 
+ * are matched by their uniqueProp, so an element whose id is unchanged keeps its node;</li>
+ * <li>the nodes that only describe an element (flowspaces, specifications, monitoring parameters, flowrules and actions) 
+ * are matched by content among the ones of the same owner, and the remaining ones are updated in place when possible;</li>
+ * <li>the relationships between elements are compared as multisets.</li>
+ * </ul>
+ * The changes are written in the transaction of the caller.
+ */
+class NffgUpdater
+{
+	/**
+	 * A node of a graph: a stored one (with its Neo4j node) or one of the new version.
+	 */
+	private static class Element
+	{
+		final String key;
+		final Label[] labels;
+		final Set<String> labelNames = new HashSet<String>();
+		final Map<String, Object> properties;
+		final List<Element> details = new ArrayList<Element>();
+		Node node;
+		
+		Element(Map<String, Object> properties, Label... labels)
+		{
+			this.properties = properties;
+			this.labels = labels;
+			
+			for (Label l : labels)
+			{
+				labelNames.add(l.name());
+			}
+			
+			if (properties.containsKey("uniqueProp")) {
+				key = (String) properties.get("uniqueProp");
+			}
+			else if (labelNames.contains(NodeType.Nffg.name())) {
+				key = "";
+				// The revision and the statistics are maintained by the caller, according to the number of changes.
+				properties.remove(NffgWriter.REVISION);
+				properties.keySet().removeAll(NffgStats.PROPERTIES);
+			}
+			else {
+				key = null;
+			}
+		}
+	}
+	
+	/**
+	 * A relationship between two elements.
+	 */
+	private static class Link
+	{
+		final String from, to;
+		final String type;
+		
+		Link(String from, String to, String type)
+		{
+			this.from = from;
+			this.to = to;
+			this.type = type;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Link)) {
+				return false;
+			}
+			
+			Link l = (Link) o;
+			
+			return from.equals(l.from) && to.equals(l.to) && type.equals(l.type);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			return (from.hashCode() * 31 + to.hashCode()) * 31 + type.hashCode();
+		}
+	}
+	
+	/**
+	 * The elements of a graph, indexed by key, and the relationships between them.
+	 */
+	private static class Snapshot
+	{
+		final Map<String, Element> elements = new LinkedHashMap<String, Element>();
+		final Map<Link, List<Relationship>> links = new HashMap<Link, List<Relationship>>();
+		
+		void addLink(Link link, Relationship r)
+		{
+			List<Relationship> l = links.get(link);
+			
+			if (l == null)
+			{
+				l = new ArrayList<Relationship>();
+				links.put(link, l);
+			}
+			
+			l.add(r);
+		}
+	}
+	
+	private final GraphDatabaseService graphDB;
+	private int changes;
+	private NffgStats stats;
+	
+	NffgUpdater(GraphDatabaseService graphDB)
+	{
+		this.graphDB = graphDB;
+	}
+	
+	/**
+	 * Builds the new version of a graph in memory, exactly as it would be written by the {@link NffgWriter}, 
+	 * counting its statistics.
+	 */
+	private Snapshot build(Nffg graph, String nffgId)
+	{
+		final Snapshot s = new Snapshot();
+		stats = new NffgStats();
+		
+		new NffgWriter<Element>(new NffgWriter.Target<Element>()
+		{
+			@Override
+			public Element createNode(Map<String, Object> properties, Label... labels)
+			{
+				Element e = new Element(properties, labels);
+				
+				if (e.key != null) {
+					s.elements.put(e.key, e);
+				}
+				
+				return e;
+			}
+			
+			@Override
+			public void createRelationship(Element from, Element to, RelationshipType type)
+			{
+				if (to.key == null) {
+					from.details.add(to);
+				}
+				else {
+					s.addLink(new Link(from.key, to.key, type.name()), null);
+				}
+			}
+			
+			@Override
+			public void setProperties(Element node, Map<String, Object> properties)
+			{
+				node.properties.putAll(properties);
+			}
+		}).counting(stats).write(graph, nffgId, NffgWriter.nffgProperties(graph, nffgId));
+		
+		return s;
+	}
+	
+	/**
+	 * Reads the stored graph, visiting all the nodes connected to its Nffg node.
+	 */
+	private static Snapshot load(Node nffgNode)
+	{
+		Snapshot s = new Snapshot();
+		Map<Long, Element> visited = new HashMap<Long, Element>();
+		Deque<Node> toVisit = new ArrayDeque<Node>();
+		toVisit.add(nffgNode);
+		
+		while (!toVisit.isEmpty())
+		{
+			Node n = toVisit.poll();
+			
+			if (visited.containsKey(n.getId())) {
+				continue;
+			}
+			
+			List<Label> labels = new ArrayList<Label>();
+			
+			for (Label l : n.getLabels())
+			{
+				labels.add(l);
+			}
+			
+			Element e = new Element(n.getAllProperties(), labels.toArray(new Label[labels.size()]));
+			e.node = n;
+			visited.put(n.getId(), e);
+			
+			if (e.key != null) {
+				s.elements.put(e.key, e);
+			}
+			
+			for (Relationship r : n.getRelationships())
+			{
+				toVisit.add(r.getOtherNode(n));
+			}
+		}
+		
+		for (Element from : visited.values())
+		{
+			for (Relationship r : from.node.getRelationships(Direction.OUTGOING))
+			{
+				Element to = visited.get(r.getEndNode().getId());
+				
+				if (to.key == null) {
+					from.details.add(to);
+				}
+				else {
+					s.addLink(new Link(from.key, to.key, r.getType().name()), r);
+				}
+			}
+		}
+		
+		return s;
+	}
+	
+	/**
+	 * Replaces the stored graph with a new version, previously checked with {@link NffgWriter#validate(Nffg)}.
+	 * The caller must hold the write lock of the Nffg node.
+	 * 
+	 * @param nffgNode the Nffg node of the stored graph.
+	 * @param graph the new version of the graph.
+	 * @return the number of changes: created and deleted nodes and relationships, set and removed properties.
+	 */
+	int update(Node nffgNode, Nffg graph)
+	{
+		changes = 0;
+		
+		Snapshot stored = load(nffgNode);
+		Snapshot wanted = build(graph, (String) nffgNode.getProperty("id"));
+		Set<String> replaced = new HashSet<String>();
+		
+		for (Element e : wanted.elements.values())
+		{
+			Element old = stored.elements.get(e.key);
+			
+			// An id that now identifies a different kind of element requires a new node.
+			if (old != null && !old.labelNames.equals(e.labelNames)) {
+				replaced.add(e.key);
+			}
+		}
+		
+		for (Map.Entry<Link, List<Relationship>> l : stored.links.entrySet())
+		{
+			List<Relationship> wantedLinks = wanted.links.get(l.getKey());
+			int keep = (wantedLinks == null || isReplaced(l.getKey(), replaced)) ? 0 : wantedLinks.size();
+			
+			for (int i = keep; i < l.getValue().size(); i++)
+			{
+				l.getValue().get(i).delete();
+				changes++;
+			}
+		}
+		
+		for (Element old : stored.elements.values())
+		{
+			if (!wanted.elements.containsKey(old.key) || replaced.contains(old.key)) {
+				delete(old);
+			}
+		}
+		
+		for (Element e : wanted.elements.values())
+		{
+			Element old = stored.elements.get(e.key);
+			
+			if (old == null || replaced.contains(e.key))
+			{
+				create(e);
+			}
+			else
+			{
+				e.node = old.node;
+				setProperties(old.node, old.properties, e.properties);
+				updateDetails(old.node, old.details, e.details);
+			}
+		}
+		
+		for (Map.Entry<Link, List<Relationship>> l : wanted.links.entrySet())
+		{
+			List<Relationship> storedLinks = stored.links.get(l.getKey());
+			int existing = (storedLinks == null || isReplaced(l.getKey(), replaced)) ? 0 : storedLinks.size();
+			Node from = wanted.elements.get(l.getKey().from).node;
+			Node to = wanted.elements.get(l.getKey().to).node;
+			
+			for (int i = existing; i < l.getValue().size(); i++)
+			{
+				from.createRelationshipTo(to, RelationType.valueOf(l.getKey().type));
+				changes++;
+			}
+		}
+		
+		return changes;
+	}
+	
+	/**
+	 * @return the statistics of the new version of the graph passed to the last {@link #update(Node, Nffg)}, 
+	 * counted while it has been built.
+	 */
+	NffgStats getStats()
+	{
+		return stats;
+	}
+	
+	private static boolean isReplaced(Link l, Set<String> replaced)
+	{
+		return replaced.contains(l.from) || replaced.contains(l.to);
+	}
+	
+	private void updateDetails(Node owner, List<Element> stored, List<Element> wanted)
+	{
+		Map<String, Deque<Element>> unchanged = new HashMap<String, Deque<Element>>();
+		List<Element> added = new ArrayList<Element>();
+		
+		for (Element old : stored)
+		{
+			String signature = signature(old);
+			Deque<Element> same = unchanged.get(signature);
+			
+			if (same == null)
+			{
+				same = new ArrayDeque<Element>();
+				unchanged.put(signature, same);
+			}
+			
+			same.add(old);
+		}
+		
+		for (Element e : wanted)
+		{
+			Deque<Element> same = unchanged.get(signature(e));
+			
+			if (same == null || same.isEmpty()) {
+				added.add(e);
+			}
+			else {
+				same.poll();
+			}
+		}
+		
+		List<Element> removed = new ArrayList<Element>();
+		
+		for (Deque<Element> same : unchanged.values())
+		{
+			removed.addAll(same);
+		}
+		
+		for (Element e : added)
+		{
+			Element old = null;
+			
+			// A changed detail is updated in place if there is a removed one of the same kind.
+			for (Iterator<Element> it = removed.iterator(); it.hasNext() && old == null; )
+			{
+				Element candidate = it.next();
+				
+				if (candidate.labelNames.equals(e.labelNames))
+				{
+					old = candidate;
+					it.remove();
+				}
+			}
+			
+			if (old == null)
+			{
+				create(e);
+				owner.createRelationshipTo(e.node, RelationType.InfoRelationship);
+				changes++;
+			}
+			else
+			{
+				setProperties(old.node, old.properties, e.properties);
+				updateDetails(old.node, old.details, e.details);
+			}
+		}
+		
+		for (Element old : removed)
+		{
+			delete(old);
+		}
+	}
+	
+	private void setProperties(Node n, Map<String, Object> stored, Map<String, Object> wanted)
+	{
+		for (Map.Entry<String, Object> p : wanted.entrySet())
+		{
+			if (!Objects.deepEquals(p.getValue(), stored.get(p.getKey())))
+			{
+				n.setProperty(p.getKey(), p.getValue());
+				changes++;
+			}
+		}
+		
+		for (String name : stored.keySet())
+		{
+			if (!wanted.containsKey(name))
+			{
+				n.removeProperty(name);
+				changes++;
+			}
+		}
+	}
+	
+	/**
+	 * Creates the node of an element (or detail) together with its details.
+	 */
+	private void create(Element e)
+	{
+		e.node = graphDB.createNode(e.labels);
+		changes++;
+		
+		for (Map.Entry<String, Object> p : e.properties.entrySet())
+		{
+			e.node.setProperty(p.getKey(), p.getValue());
+		}
+		
+		for (Element d : e.details)
+		{
+			create(d);
+			e.node.createRelationshipTo(d.node, RelationType.InfoRelationship);
+			changes++;
+		}
+	}
+	
+	/**
+	 * Deletes the node of an element (or detail) together with its details.
+	 */
+	private void delete(Element e)
+	{
+		for (Element d : e.details)
+		{
+			delete(d);
+		}
+		
+		for (Relationship r : e.node.getRelationships())
+		{
+			r.delete();
+			changes++;
+		}
+		
+		e.node.delete();
+		changes++;
+	}
+	
+	/**
+	 * Describes the content of a detail and of its own details, regardless of their order.
+	 */
+	private static String signature(Element e)
+	{
+		StringBuilder sb = new StringBuilder();
+		List<String> labels = new ArrayList<String>(e.labelNames);
+		List<String> details = new ArrayList<String>();
+		Collections.sort(labels);
+		sb.append(labels);
+		
+		for (Map.Entry<String, Object> p : new TreeMap<String, Object>(e.properties).entrySet())
+		{
+			Object v = p.getValue();
+			sb.append(p.getKey()).append('=').append(v.getClass().getSimpleName()).append(':');
+			sb.append((v instanceof Object[]) ? Arrays.toString((Object[]) v) : v.toString()).append(';');
+		}
+		
+		for (Element d : e.details)
+		{
+			details.add(signature(d));
+		}
+		
+		Collections.sort(details);
+		
+		return sb.append(details).toString();
+	}
+}
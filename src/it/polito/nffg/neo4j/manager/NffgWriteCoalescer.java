@@ -0,0 +1,245 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import it.polito.nffg.neo4j.jaxb.Nffg;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.CreationResult;
+
+/**
+ * Group commit for the creation of single graphs. The graphs submitted by concurrent requests are gathered 
+ * by a committer thread: after the first one it waits for the others until the window expires or the maximum 
+ * number of graphs is reached, then it saves all of them with a single transaction. 
+ * The outcome of each graph is reported to its own caller, even when the commit fails with an Error.
+ * Each creation may wait up to the window more than it would alone, then the group commit is off by default 
+ * (property groupCommitWindowMs, 0 disables it).
+ */
+class NffgWriteCoalescer
+{
+	/**
+	 * Saves a group of graphs, reporting the outcome of each one (a failed graph must not prevent the creation of the others).
+	 */
+	interface GroupWriter
+	{
+		List<CreationResult> write(List<Nffg> graphs);
+	}
+	
+	private static class PendingGraph
+	{
+		final Nffg graph;
+		final CountDownLatch done = new CountDownLatch(1);
+		CreationResult result;
+		
+		PendingGraph(Nffg graph)
+		{
+			this.graph = graph;
+		}
+	}
+	
+	private static final PendingGraph STOP = new PendingGraph(null);
+	
+	private final BlockingQueue<PendingGraph> pending = new LinkedBlockingQueue<PendingGraph>();
+	private final Thread committer;
+	private volatile boolean closed;
+	private final GroupWriter writer;
+	private final long windowNanos;
+	private final int maxGraphs;
+	private static Logger logger = Logger.getLogger(NffgWriteCoalescer.class.getCanonicalName());
+	
+	NffgWriteCoalescer(GroupWriter writer, long windowMillis, int maxGraphs)
+	{
+		this.writer = writer;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+		this.maxGraphs = maxGraphs;
+		
+		committer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				commitLoop();
+			}
+		}, "nffg-group-commit");
+		committer.setDaemon(true);
+		committer.start();
+	}
+	
+	/**
+	 * Saves a graph together with the ones submitted in the same window, waiting for the commit.
+	 * 
+	 * @return the id assigned to the graph.
+	 * @throws Exception the error that prevented the creation of the graph.
+	 */
+	Integer write(Nffg graph) throws Exception
+	{
+		PendingGraph p = new PendingGraph(graph);
+		
+		// Every graph is queued before the STOP sentinel, or rejected.
+		synchronized (pending)
+		{
+			if (closed)
+			{
+				throw new IllegalStateException("The server is shutting down");
+			}
+			
+			pending.put(p);
+		}
+		
+		p.done.await();
+		
+		if (p.result.getError() != null)
+		{
+			throw p.result.getError();
+		}
+		
+		return p.result.getId();
+	}
+	
+	private void commitLoop()
+	{
+		List<PendingGraph> group = new ArrayList<PendingGraph>();
+		List<Nffg> graphs = new ArrayList<Nffg>();
+		boolean stopping = false;
+		
+		while (!stopping)
+		{
+			try
+			{
+				PendingGraph first = pending.take();
+				stopping = (first == STOP);
+				long deadline = System.nanoTime() + windowNanos;
+				
+				if (!stopping)
+				{
+					group.add(first);
+				}
+				
+				while (!stopping && group.size() < maxGraphs)
+				{
+					// The graphs that arrived during the previous commit are taken without waiting.
+					PendingGraph p = pending.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					
+					if (p == null)
+					{
+						break;
+					}
+					
+					stopping = (p == STOP);
+					
+					if (!stopping)
+					{
+						group.add(p);
+					}
+				}
+			}
+			catch (InterruptedException e)
+			{
+				for (PendingGraph p : group)
+				{
+					p.result = new CreationResult(null, e);
+					p.done.countDown();
+				}
+				
+				Thread.currentThread().interrupt();
+				return;
+			}
+			
+			if (group.isEmpty())
+			{
+				continue;
+			}
+			
+			for (PendingGraph p : group)
+			{
+				graphs.add(p.graph);
+			}
+			
+			List<CreationResult> results = null;
+			Exception failure = null;
+			
+			try
+			{
+				results = writer.write(graphs);
+			}
+			catch (Throwable t)
+			{
+				// Even an Error must not stop the thread: the callers would wait forever.
+				logger.log(Level.SEVERE, "The group commit of " + group.size() + " graphs failed", t);
+				failure = (t instanceof Exception) ? (Exception) t : new Exception("The group commit failed", t);
+			}
+			finally
+			{
+				for (int i = 0; i < group.size(); i++)
+				{
+					PendingGraph p = group.get(i);
+					p.result = (failure == null && results != null && i < results.size()) ? results.get(i) : 
+							   new CreationResult(null, (failure != null) ? failure : new Exception("The group commit returned no outcome"));
+					p.done.countDown();
+				}
+			}
+			
+			group.clear();
+			graphs.clear();
+		}
+		
+		// The graphs queued after the last group, while the coalescer was closing, aren't saved.
+		for (PendingGraph p = pending.poll(); p != null; p = pending.poll())
+		{
+			if (p != STOP)
+			{
+				p.result = new CreationResult(null, new IllegalStateException("The server is shutting down"));
+				p.done.countDown();
+			}
+		}
+	}
+	
+	/**
+	 * Stops accepting graphs and waits until the committer has saved the ones already submitted.
+	 * 
+	 * @param timeoutMillis the maximum time to wait.
+	 */
+	void close(long timeoutMillis)
+	{
+		synchronized (pending)
+		{
+			closed = true;
+			pending.add(STOP);
+		}
+		
+		try
+		{
+			committer.join(timeoutMillis);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,520 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ *
+ * This file is part of Verigraph.
+ *
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+
+import it.polito.nffg.neo4j.exceptions.MyConstraintViolationException;
+import it.polito.nffg.neo4j.jaxb.ActionEnumType;
+import it.polito.nffg.neo4j.jaxb.ActionType;
+import it.polito.nffg.neo4j.jaxb.CiType;
+import it.polito.nffg.neo4j.jaxb.CpType;
+import it.polito.nffg.neo4j.jaxb.EpCpType;
+import it.polito.nffg.neo4j.jaxb.EpType;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType;
+import it.polito.nffg.neo4j.jaxb.MonParamsType;
+import it.polito.nffg.neo4j.jaxb.NeType;
+import it.polito.nffg.neo4j.jaxb.NfType;
+import it.polito.nffg.neo4j.jaxb.Nffg;
+import it.polito.nffg.neo4j.jaxb.PortDirEnumType;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Ip;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Mac;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Tcp;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Udp;
+import it.polito.nffg.neo4j.jaxb.MonParamsType.Parameter;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.NodeType;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.RelationType;
+
+/**
+ * Ingestion engine that stores a whole Nffg through plain node/relationship creations.
+ * It produces exactly the same nodes, labels, properties and relationships of the Cypher based path, but:
+ * the graph is validated in memory before anything is written, every node is created in a single call
+ * (no Cypher parsing, no nested transaction per node) and endpoints/connection points are kept
+ * in an id-to-node map, so the PathRelationships generated by the output actions need no index lookup.
+ * The writes are sent to a {@link Target}, that is the embedded database (inside the transaction of the caller)
+ * or the batch inserter used by the offline loader.
+ *
+ * @param <N> the type that identifies a node into the target.
+ */
+class NffgWriter<N>
+{
+	/**
+	 * Destination of the nodes and relationships generated by the writer.
+	 *
+	 * @param <N> the type that identifies a node into the target.
+	 */
+	interface Target<N>
+	{
+		N createNode(Map<String, Object> properties, Label... labels);
+		
+		void createRelationship(N from, N to, RelationshipType type);
+		
+		/**
+		 * Adds some properties to a node already created (e.g. the statistics of a graph, known only after it has been written).
+		 */
+		void setProperties(N node, Map<String, Object> properties);
+	}
+	
+	/**
+	 * Property of the Nffg node that identifies the current content of the graph: it is set when the graph is created 
+	 * and replaced by a new random value every time the graph is changed.
+	 */
+	static final String REVISION = "revision";
+	
+	private final Target<N> target;
+
+	NffgWriter(Target<N> target)
+	{
+		this.target = target;
+	}
+	
+	/**
+	 * Creates a writer whose target is the given database. The writes take part in the transaction 
+	 * opened by the caller.
+	 * 
+	 * @param graphDB the embedded database.
+	 * @return the writer.
+	 */
+	static NffgWriter<Node> forDatabase(final GraphDatabaseService graphDB)
+	{
+		return new NffgWriter<Node>(new Target<Node>()
+		{
+			@Override
+			public Node createNode(Map<String, Object> properties, Label... labels)
+			{
+				Node n = graphDB.createNode(labels);
+				
+				for (Map.Entry<String, Object> p : properties.entrySet())
+				{
+					n.setProperty(p.getKey(), p.getValue());
+				}
+				
+				return n;
+			}
+			
+			@Override
+			public void createRelationship(Node from, Node to, RelationshipType type)
+			{
+				from.createRelationshipTo(to, type);
+			}
+			
+			@Override
+			public void setProperties(Node node, Map<String, Object> properties)
+			{
+				for (Map.Entry<String, Object> p : properties.entrySet())
+				{
+					node.setProperty(p.getKey(), p.getValue());
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Creates a writer that sends the writes to the same target as this one, counting them into the given statistics.
+	 * 
+	 * @param stats the statistics that count the nodes and relationships written.
+	 * @return the writer.
+	 */
+	NffgWriter<N> counting(NffgStats stats)
+	{
+		return new NffgWriter<N>(stats.counting(target));
+	}
+
+	private static void checkUnique(Set<String> ids, String id) throws MyConstraintViolationException
+	{
+		if (!ids.add(id)) {
+			throw new MyConstraintViolationException("Unique value '" + id + "' duplicated within the document");
+		}
+	}
+
+	/**
+	 * Checks, without touching the database, every constraint that the Cypher based path enforces while writing:
+	 * uniqueness of the ids within the document, existence of the id_refs and consistency of the actions.
+	 * The checks are performed in the same order, so that the same message is reported for the same document. 
+	 * As there, the ids are unique within each kind of element, so an endpoint and a connection point may share an id.
+	 *
+	 * @param graph the graph to validate.
+	 * @throws MyConstraintViolationException if the graph can't be saved.
+	 */
+	static void validate(Nffg graph) throws MyConstraintViolationException
+	{
+		Set<String> refs = new HashSet<String>();
+		Set<String> eps = new HashSet<String>();
+		Set<String> nfs = new HashSet<String>();
+		Set<String> cps = new HashSet<String>();
+		Set<String> cis = new HashSet<String>();
+		Set<String> nes = new HashSet<String>();
+
+		for (EpType ept : graph.getEndpoints().getEndpoint())
+		{
+			checkUnique(eps, ept.getId());
+			refs.add(ept.getId());
+		}
+
+		for (NfType nft : graph.getNetworkFunctions().getNetworkFunction())
+		{
+			checkUnique(nfs, nft.getId());
+
+			for (CpType cpt : nft.getConnectionPoints().getConnectionPoint())
+			{
+				checkUnique(cps, cpt.getId());
+				refs.add(cpt.getId());
+			}
+
+			for (CiType cit : nft.getControlInterfaces().getControlInterface())
+			{
+				checkUnique(cis, cit.getId());
+			}
+		}
+
+		for (NeType net : graph.getNetworkElements().getNetworkElement())
+		{
+			checkUnique(nes, net.getId());
+
+			for (EpCpType epcpt : net.getEpsCps().getEpCp())
+			{
+				validateFlowrules(epcpt, refs);
+			}
+		}
+	}
+
+	/**
+	 * Checks the flowrules of an ep-cp against the ids of the endpoints and connection points of its graph.
+	 *
+	 * @param epcpt the ep-cp to validate.
+	 * @param refs the ids of the endpoints and connection points.
+	 * @throws MyConstraintViolationException if the flowrules can't be saved.
+	 */
+	static void validateFlowrules(EpCpType epcpt, Set<String> refs) throws MyConstraintViolationException
+	{
+		if (!refs.contains(epcpt.getIdRef())) {
+			throw new MyConstraintViolationException("id_ref '" + epcpt.getIdRef() + "' not found within the document");
+		}
+
+		for (FlowrulesType frt : epcpt.getFlowrules())
+		{
+			for (ActionType act : frt.getActions().getAction())
+			{
+				if (act.getType() == ActionEnumType.OUTPUT)
+				{
+					if (act.getPort() == null) {
+						throw new MyConstraintViolationException("Type of the action, associated with ep-cp whose id_ref = " + epcpt.getIdRef() + ", is 'output' but there is no specified port");
+					}
+
+					if (!refs.contains(act.getPort())) {
+						throw new MyConstraintViolationException("The specified port '" + act.getPort() + "' doesn't match with any ep/cp within the document");
+					}
+				}
+				else if (act.getPort() != null)
+				{
+					throw new MyConstraintViolationException("Type of the action, associated with ep-cp whose id_ref = " + epcpt.getIdRef() + ", is 'discard' but there is a specified port");
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a new value for the revision of a graph.
+	 */
+	static long newRevision()
+	{
+		return ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+	}
+
+	/**
+	 * @param graph a graph.
+	 * @param nffgId the id assigned to the graph (in the form 'nffg_N').
+	 * @return the properties of the Nffg node of a new graph, but its statistics.
+	 */
+	static Map<String, Object> nffgProperties(Nffg graph, String nffgId)
+	{
+		Map<String, Object> props = new HashMap<String, Object>();
+		props.put("id", nffgId);
+
+		if (graph.getVersion() != null) {
+			props.put("version", graph.getVersion());
+		}
+
+		props.put(REVISION, newRevision());
+		props.put(NffgStats.CREATED, System.currentTimeMillis());
+
+		return props;
+	}
+
+	/**
+	 * Writes a graph, previously checked with {@link #validate(Nffg)}, together with its statistics (see {@link NffgStats}): 
+	 * they are counted while the graph is written and then added to the Nffg node.
+	 *
+	 * @param graph the graph to save.
+	 * @param nffgId the id assigned to the graph (in the form 'nffg_N').
+	 * @return the Nffg node.
+	 */
+	N write(Nffg graph, String nffgId)
+	{
+		NffgStats stats = new NffgStats();
+		N nffgNode = counting(stats).write(graph, nffgId, nffgProperties(graph, nffgId));
+		Map<String, Object> props = new HashMap<String, Object>();
+		stats.putInto(props);
+		target.setProperties(nffgNode, props);
+
+		return nffgNode;
+	}
+
+	/**
+	 * Writes a graph under a Nffg node with the given properties.
+	 *
+	 * @param graph the graph to save.
+	 * @param nffgId the id assigned to the graph (in the form 'nffg_N').
+	 * @param nffgProperties the properties of the Nffg node.
+	 * @return the Nffg node.
+	 */
+	N write(Nffg graph, String nffgId, Map<String, Object> nffgProperties)
+	{
+		EpType.Flowspace efs; String[] tmpArray; int n;
+		N nffgNode, epNode, nfNode, cpNode, neNode;
+		Map<String, Object> props;
+		Map<String, N> refs = new HashMap<String, N>();
+
+		nffgNode = target.createNode(nffgProperties, NodeType.Nffg);
+		writeMonitoringParameters(graph.getMonitoringParameters(), nffgNode, nffgId);
+
+		for (EpType ept : graph.getEndpoints().getEndpoint())
+		{
+			props = elementProperties(nffgId, ept.getId());
+			epNode = target.createNode(props, NodeType.Endpoint, NodeType.Referenceable, NodeType.Pathable);
+			target.createRelationship(nffgNode, epNode, RelationType.InfoRelationship);
+			refs.put(ept.getId(), epNode);
+			efs = ept.getFlowspace();
+
+			if (efs.getNodeId() != null || efs.getIngPhysPort() != null || efs.getMac() != null ||
+				efs.getIp() != null || efs.getTcp() != null || efs.getUdp() != null)
+			{
+				props = infoProperties(nffgId);
+
+				if (efs.getNodeId() != null) {
+					props.put("nodeId", efs.getNodeId());
+				}
+
+				if (efs.getIngPhysPort() != null) {
+					props.put("ingPhysPort", efs.getIngPhysPort());
+				}
+
+				putHeaders(efs.getMac(), efs.getIp(), efs.getTcp(), efs.getUdp(), props);
+				createInfoNode(epNode, props, NodeType.Flowspace);
+			}
+		}
+
+		for (NfType nft : graph.getNetworkFunctions().getNetworkFunction())
+		{
+			props = elementProperties(nffgId, nft.getId());
+			props.put("functionType", nft.getFunctionalType());
+			nfNode = target.createNode(props, NodeType.NetworkFunction, NodeType.Pathable);
+			target.createRelationship(nffgNode, nfNode, RelationType.InfoRelationship);
+			writeMonitoringParameters(nft.getMonitoringParameters(), nfNode, nffgId);
+			props = infoProperties(nffgId);
+			n = props.size();
+			PropertyMapper.SPECIFICATION.write(nft.getSpecification(), props);
+
+			// The node is created only if some value of the specification isn't the default one.
+			if (props.size() > n)
+			{
+				createInfoNode(nfNode, props, NodeType.Specification);
+			}
+
+			for (CpType cpt : nft.getConnectionPoints().getConnectionPoint())
+			{
+				props = elementProperties(nffgId, cpt.getId());
+				props.put("port-id", cpt.getPort().getId());
+				props.put("port-direction", cpt.getPort().getDirection().value());
+
+				if (!cpt.getPort().getType().equals("N.A.")) {
+					props.put("port-type", cpt.getPort().getType());
+				}
+
+				cpNode = target.createNode(props, NodeType.ConnectionPoint, NodeType.Referenceable, NodeType.Pathable);
+				refs.put(cpt.getId(), cpNode);
+
+				if (cpt.getPort().getDirection() == PortDirEnumType.IN)
+				{
+					target.createRelationship(cpNode, nfNode, RelationType.PathRelationship);
+				}
+				else if (cpt.getPort().getDirection() == PortDirEnumType.OUT)
+				{
+					target.createRelationship(nfNode, cpNode, RelationType.PathRelationship);
+				}
+				else
+				{
+					target.createRelationship(cpNode, nfNode, RelationType.PathRelationship);
+					target.createRelationship(nfNode, cpNode, RelationType.PathRelationship);
+				}
+			}
+
+			for (CiType cit : nft.getControlInterfaces().getControlInterface())
+			{
+				props = elementProperties(nffgId, cit.getId());
+
+				if (cit.getAttributes().getAttribute().size() > 0)
+				{
+					tmpArray = new String[cit.getAttributes().getAttribute().size()];
+
+					for (int i = 0; i < tmpArray.length; i++)
+					{
+						tmpArray[i] = cit.getAttributes().getAttribute().get(i).getValue();
+					}
+
+					props.put("attributes", tmpArray);
+				}
+
+				createInfoNode(nfNode, props, NodeType.CtrlInterface);
+			}
+		}
+
+		for (NeType net : graph.getNetworkElements().getNetworkElement())
+		{
+			props = elementProperties(nffgId, net.getId());
+			props.put("type", net.getType());
+			neNode = target.createNode(props, NodeType.NetworkElement);
+			target.createRelationship(nffgNode, neNode, RelationType.InfoRelationship);
+			writeMonitoringParameters(net.getMonitoringParameters(), neNode, nffgId);
+
+			for (EpCpType epcpt : net.getEpsCps().getEpCp())
+			{
+				writeFlowrules(neNode, epcpt, refs, nffgId);
+			}
+		}
+
+		return nffgNode;
+	}
+
+	/**
+	 * Writes the flowrules of an ep-cp, previously checked with {@link #validateFlowrules(EpCpType, Set)}, 
+	 * together with the PathRelationships generated by their output actions.
+	 *
+	 * @param neNode the node of the network element that owns the flowrules.
+	 * @param epcpt the ep-cp.
+	 * @param refs the nodes of the endpoints and connection points referred by the ep-cp (at least).
+	 * @param nffgId the id of the graph (in the form 'nffg_N').
+	 */
+	void writeFlowrules(N neNode, EpCpType epcpt, Map<String, N> refs, String nffgId)
+	{
+		FlowrulesType.Flowspace ffs; N frNode;
+		Map<String, Object> props;
+
+		for (FlowrulesType frt : epcpt.getFlowrules())
+		{
+			props = infoProperties(nffgId);
+			props.put("epcp-idRef", epcpt.getIdRef());
+			frNode = createInfoNode(neNode, props, NodeType.Flowrules);
+
+			for (ActionType act : frt.getActions().getAction())
+			{
+				props = infoProperties(nffgId);
+				props.put("type", act.getType().value());
+
+				if (act.getType() == ActionEnumType.OUTPUT)
+				{
+					props.put("port", act.getPort());
+					target.createRelationship(refs.get(epcpt.getIdRef()), refs.get(act.getPort()), RelationType.PathRelationship);
+				}
+
+				createInfoNode(frNode, props, NodeType.Action);
+			}
+
+			ffs = frt.getFlowspace();
+
+			if (ffs.getIngPort() != null || ffs.getMac() != null ||
+				ffs.getIp() != null || ffs.getTcp() != null || ffs.getUdp() != null)
+			{
+				props = infoProperties(nffgId);
+
+				if (ffs.getIngPort() != null) {
+					props.put("ingPort", ffs.getIngPort());
+				}
+
+				putHeaders(ffs.getMac(), ffs.getIp(), ffs.getTcp(), ffs.getUdp(), props);
+				createInfoNode(frNode, props, NodeType.Flowspace);
+			}
+		}
+	}
+
+	private static Map<String, Object> elementProperties(String nffgId, String id)
+	{
+		Map<String, Object> props = new HashMap<String, Object>();
+		props.put("uniqueProp", nffgId + "-" + id);
+		props.put("nffgId", nffgId);
+		props.put("id", id);
+
+		return props;
+	}
+
+	private static Map<String, Object> infoProperties(String nffgId)
+	{
+		Map<String, Object> props = new HashMap<String, Object>();
+		props.put("nffgId", nffgId);
+
+		return props;
+	}
+
+	private N createInfoNode(N owner, Map<String, Object> props, NodeType label)
+	{
+		N n = target.createNode(props, label);
+		target.createRelationship(owner, n, RelationType.InfoRelationship);
+
+		return n;
+	}
+
+	private void writeMonitoringParameters(MonParamsType mpt, N owner, String nffgId)
+	{
+		int n = 0;
+		String[] tmpArray;
+
+		if (!mpt.getParameter().isEmpty())
+		{
+			Map<String, Object> props = infoProperties(nffgId);
+
+			for (Parameter par : mpt.getParameter())
+			{
+				tmpArray = new String[par.getValue().size()];
+				props.put("parameters[" + (n++) + "]", par.getValue().toArray(tmpArray));
+			}
+
+			createInfoNode(owner, props, NodeType.MonitoringParameter);
+		}
+	}
+
+	private static void putHeaders(Mac mac, Ip ip, Tcp tcp, Udp udp, Map<String, Object> props)
+	{
+		PropertyMapper.MAC.write(mac, props);
+		PropertyMapper.IP.write(ip, props);
+		PropertyMapper.TCP.write(tcp, props);
+		PropertyMapper.UDP.write(udp, props);
+	}
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.graphdb.Node;
+
+import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Ip;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Mac;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Tcp;
+import it.polito.nffg.neo4j.jaxb.FlowrulesType.Flowspace.Udp;
+import it.polito.nffg.neo4j.jaxb.ObjectFactory;
+import it.polito.nffg.neo4j.jaxb.SpecType;
+
+/**
+ * Maps the properties of a node to the fields of a JAXB element and back, by means of a table 
+ * that associates the key of each property with the accessors of its field.
+ * A node is read with a single call to getAllProperties, instead of a hasProperty and a getProperty call 
+ * (that walk the property chain of the node each one) for every field. The same table is used to write the node, 
+ * so the two directions can't disagree on a key or on the type of a value.
+ *
+ * @param <E> the type of the element.
+ */
+abstract class PropertyMapper<E>
+{
+	/**
+	 * A property of a node and the accessors of the corresponding field of the element.
+	 *
+	 * @param <E> the type of the element.
+	 */
+	abstract static class Field<E>
+	{
+		final String key;
+		
+		Field(String key)
+		{
+			this.key = key;
+		}
+		
+		/**
+		 * @return the value to store, or null if the property isn't stored for the element.
+		 */
+		abstract Object get(E element);
+		
+		abstract void set(E element, Object value);
+	}
+	
+	private static final ObjectFactory obFactory = new ObjectFactory();
+	private final List<Field<E>> fields = new ArrayList<Field<E>>();
+	
+	/**
+	 * The MAC headers of a flowspace.
+	 */
+	static final PropertyMapper<Mac> MAC = new PropertyMapper<Mac>()
+	{
+		{
+			add(new Field<Mac>("mac-src")
+			{
+				Object get(Mac e) { return e.getSrc(); }
+				void set(Mac e, Object v) { e.setSrc((String) v); }
+			});
+			add(new Field<Mac>("mac-dst")
+			{
+				Object get(Mac e) { return e.getDst(); }
+				void set(Mac e, Object v) { e.setDst((String) v); }
+			});
+			add(new Field<Mac>("mac-ethertype")
+			{
+				Object get(Mac e) { return e.getEthertype(); }
+				void set(Mac e, Object v) { e.setEthertype((Integer) v); }
+			});
+			add(new Field<Mac>("mac-vlanId")
+			{
+				Object get(Mac e) { return e.getVlanId(); }
+				void set(Mac e, Object v) { e.setVlanId((Integer) v); }
+			});
+			add(new Field<Mac>("mac-vlanPcp")
+			{
+				Object get(Mac e) { return e.getVlanPcp(); }
+				void set(Mac e, Object v) { e.setVlanPcp((Integer) v); }
+			});
+		}
+		
+		@Override
+		Mac create()
+		{
+			return obFactory.createFlowrulesTypeFlowspaceMac();
+		}
+	};
+	
+	/**
+	 * The IP headers of a flowspace.
+	 */
+	static final PropertyMapper<Ip> IP = new PropertyMapper<Ip>()
+	{
+		{
+			add(new Field<Ip>("ip-src")
+			{
+				Object get(Ip e) { return e.getSrc(); }
+				void set(Ip e, Object v) { e.setSrc((String) v); }
+			});
+			add(new Field<Ip>("ip-dst")
+			{
+				Object get(Ip e) { return e.getDst(); }
+				void set(Ip e, Object v) { e.setDst((String) v); }
+			});
+			add(new Field<Ip>("ip-ipProtocol")
+			{
+				Object get(Ip e) { return e.getIpProtocol(); }
+				void set(Ip e, Object v) { e.setIpProtocol((Short) v); }
+			});
+			add(new Field<Ip>("ip-tos")
+			{
+				Object get(Ip e) { return e.getTos(); }
+				void set(Ip e, Object v) { e.setTos((Short) v); }
+			});
+		}
+		
+		@Override
+		Ip create()
+		{
+			return obFactory.createFlowrulesTypeFlowspaceIp();
+		}
+	};
+	
+	/**
+	 * The TCP headers of a flowspace.
+	 */
+	static final PropertyMapper<Tcp> TCP = new PropertyMapper<Tcp>()
+	{
+		{
+			add(new Field<Tcp>("tcp-src")
+			{
+				Object get(Tcp e) { return e.getSrc(); }
+				void set(Tcp e, Object v) { e.setSrc((Integer) v); }
+			});
+			add(new Field<Tcp>("tcp-dst")
+			{
+				Object get(Tcp e) { return e.getDst(); }
+				void set(Tcp e, Object v) { e.setDst((Integer) v); }
+			});
+		}
+		
+		@Override
+		Tcp create()
+		{
+			return obFactory.createFlowrulesTypeFlowspaceTcp();
+		}
+	};
+	
+	/**
+	 * The UDP headers of a flowspace.
+	 */
+	static final PropertyMapper<Udp> UDP = new PropertyMapper<Udp>()
+	{
+		{
+			add(new Field<Udp>("udp-src")
+			{
+				Object get(Udp e) { return e.getSrc(); }
+				void set(Udp e, Object v) { e.setSrc((Integer) v); }
+			});
+			add(new Field<Udp>("udp-dst")
+			{
+				Object get(Udp e) { return e.getDst(); }
+				void set(Udp e, Object v) { e.setDst((Integer) v); }
+			});
+		}
+		
+		@Override
+		Udp create()
+		{
+			return obFactory.createFlowrulesTypeFlowspaceUdp();
+		}
+	};
+	
+	/**
+	 * The specification of a network function: the values equal to the defaults of the schema aren't stored.
+	 */
+	static final PropertyMapper<SpecType> SPECIFICATION = new PropertyMapper<SpecType>()
+	{
+		{
+			add(new Field<SpecType>("deployment")
+			{
+				Object get(SpecType e) { return specified(e.getDeployment().getType()); }
+				void set(SpecType e, Object v) { e.setDeployment(obFactory.createSpecTypeDeployment()); e.getDeployment().setType((String) v); }
+			});
+			add(new Field<SpecType>("image")
+			{
+				Object get(SpecType e) { return specified(e.getImage().getUri()); }
+				void set(SpecType e, Object v) { e.setImage(obFactory.createSpecTypeImage()); e.getImage().setUri((String) v); }
+			});
+			add(new Field<SpecType>("cpu-model")
+			{
+				Object get(SpecType e) { return specified(e.getCpu().getModel()); }
+				void set(SpecType e, Object v) { e.getCpu().setModel((String) v); }
+			});
+			add(new Field<SpecType>("cpu-architecture")
+			{
+				Object get(SpecType e) { return specified(e.getCpu().getArchitecture()); }
+				void set(SpecType e, Object v) { e.getCpu().setArchitecture((String) v); }
+			});
+			add(new Field<SpecType>("cpu-numCores")
+			{
+				Object get(SpecType e) { return (e.getCpu().getNumCores() != 1) ? e.getCpu().getNumCores() : null; }
+				void set(SpecType e, Object v) { e.getCpu().setNumCores((Short) v); }
+			});
+			add(new Field<SpecType>("cpu-clockSpeed")
+			{
+				Object get(SpecType e) { return specified(e.getCpu().getClockSpeed()); }
+				void set(SpecType e, Object v) { e.getCpu().setClockSpeed((String) v); }
+			});
+			add(new Field<SpecType>("mem-type")
+			{
+				Object get(SpecType e) { return specified(e.getMemory().getType()); }
+				void set(SpecType e, Object v) { e.getMemory().setType((String) v); }
+			});
+			add(new Field<SpecType>("mem-size")
+			{
+				Object get(SpecType e) { return specified(e.getMemory().getSize()); }
+				void set(SpecType e, Object v) { e.getMemory().setSize((String) v); }
+			});
+			add(new Field<SpecType>("sto-type")
+			{
+				Object get(SpecType e) { return specified(e.getStorage().getType()); }
+				void set(SpecType e, Object v) { e.getStorage().setType((String) v); }
+			});
+			add(new Field<SpecType>("sto-size")
+			{
+				Object get(SpecType e) { return specified(e.getStorage().getSize()); }
+				void set(SpecType e, Object v) { e.getStorage().setSize((String) v); }
+			});
+		}
+		
+		@Override
+		SpecType create()
+		{
+			SpecType st = obFactory.createSpecType();
+			st.setCpu(obFactory.createSpecTypeCpu());
+			st.setMemory(obFactory.createSpecTypeMemory());
+			st.setStorage(obFactory.createSpecTypeStorage());
+			
+			return st;
+		}
+	};
+	
+	private static String specified(String value)
+	{
+		return "N.A.".equals(value) ? null : value;
+	}
+	
+	void add(Field<E> field)
+	{
+		fields.add(field);
+	}
+	
+	List<Field<E>> getFields()
+	{
+		return Collections.unmodifiableList(fields);
+	}
+	
+	/**
+	 * @return a new element, to be filled by {@link #read(Map)}.
+	 */
+	abstract E create();
+	
+	/**
+	 * @param properties the properties of a node.
+	 * @return the element with the values of the properties, or null if the node has none of them.
+	 */
+	E read(Map<String, Object> properties)
+	{
+		E element = null;
+		
+		for (Field<E> f : fields)
+		{
+			Object value = properties.get(f.key);
+			
+			if (value != null)
+			{
+				if (element == null) {
+					element = create();
+				}
+				
+				f.set(element, value);
+			}
+		}
+		
+		return element;
+	}
+	
+	/**
+	 * @param properties the properties of a node.
+	 * @param element the element to fill with the values of the properties.
+	 */
+	void read(Map<String, Object> properties, E element)
+	{
+		for (Field<E> f : fields)
+		{
+			Object value = properties.get(f.key);
+			
+			if (value != null) {
+				f.set(element, value);
+			}
+		}
+	}
+	
+	/**
+	 * @param element the element, or null.
+	 * @param properties the properties of a node, where the ones of the element are put.
+	 */
+	void write(E element, Map<String, Object> properties)
+	{
+		if (element == null) {
+			return;
+		}
+		
+		for (Field<E> f : fields)
+		{
+			Object value = f.get(element);
+			
+			if (value != null) {
+				properties.put(f.key, value);
+			}
+		}
+	}
+	
+	/**
+	 * @param element the element, or null.
+	 * @param node the node whose properties are set.
+	 */
+	void write(E element, Node node)
+	{
+		if (element == null) {
+			return;
+		}
+		
+		for (Field<E> f : fields)
+		{
+			Object value = f.get(element);
+			
+			if (value != null) {
+				node.setProperty(f.key, value);
+			}
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.resources;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+import it.polito.nffg.neo4j.exceptions.MyGenericException;
+import it.polito.nffg.neo4j.jaxb.Indexes;
+import it.polito.nffg.neo4j.jaxb.ResponseCache;
+import it.polito.nffg.neo4j.manager.NffgResponseCache;
+
+/**
+ * This class defines the methods that are mapped to HTTP request at path '/admin', used to monitor the service.
+ *
+ * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+ */
+@Path("/admin")
+public class AdminResource 
+{
+	private static Logger logger = Logger.getLogger(AdminResource.class.getCanonicalName());
+	
+	/**
+	 * Method associated with HTTP GET at path '/admin/indexes'. It's used to retrieve the state of the indexes of the database.
+	 * 
+	 * @return the state of each index (online, populating or failed).
+	 * @throws MyGenericException in case of any unpredictable errors.
+	 * @see Indexes
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Produces.html">@Produces</a>
+	 * @see MyGenericException
+	 */
+	@GET
+	@Path("indexes")
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public Indexes getIndexes() throws MyGenericException
+	{
+		try
+		{
+			return GraphsResource.lib.getIndexes();
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+	}
+	
+	/**
+	 * Method associated with HTTP GET at path '/admin/cache'. It's used to retrieve the metrics of the response cache.
+	 * 
+	 * @return the size of the cache and the number of hits, misses, evictions and invalidations.
+	 * @see ResponseCache
+	 * @see NffgResponseCache
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Produces.html">@Produces</a>
+	 */
+	@GET
+	@Path("cache")
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public ResponseCache getCache()
+	{
+		return NffgResponseCache.instance.getStats(GraphsResource.lib.getObjectFactory());
+	}
+}
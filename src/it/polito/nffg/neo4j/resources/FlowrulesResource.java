@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.resources;
+
+import java.net.URI;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.core.Response.Status;
+
+import it.polito.nffg.neo4j.constraints.Graph;
+import it.polito.nffg.neo4j.exceptions.MyConstraintViolationException;
+import it.polito.nffg.neo4j.exceptions.MyGenericException;
+import it.polito.nffg.neo4j.exceptions.MyNotFoundException;
+import it.polito.nffg.neo4j.jaxb.EpCp;
+import it.polito.nffg.neo4j.jaxb.HttpMessage;
+import it.polito.nffg.neo4j.jaxb.ObjectFactory;
+
+/**
+ * This class defines the methods that are mapped to HTTP request at path '/graphs/graphId/network_elements/neId/flowrules'.
+ * The flowrules are managed for each ep-cp of the network element, without touching the rest of the graph.
+ */
+public class FlowrulesResource 
+{
+	private String graphId;
+	private String neId;
+	private String message;
+	private ObjectFactory obFactory = GraphsResource.lib.getObjectFactory();
+	private static Logger logger = Logger.getLogger(FlowrulesResource.class.getCanonicalName());
+	
+	/**
+	 * Constructor method that initializes graphId and neId fields with the values of the passed arguments.
+	 * 
+	 * @param graphId the id of the graph taken from URL.
+	 * @param neId the id of the network element taken from URL.
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 */
+	public FlowrulesResource(String graphId, String neId)
+	{
+		this.graphId = graphId;
+		this.neId = neId;
+	}
+	
+	private void validate(EpCp epcp) throws MyGenericException
+	{
+		Graph.Validator.Result error = new Graph.Validator().validate(epcp);
+		
+		if (error != null)
+		{
+			logger.log(Level.WARNING, error.getMessage());
+			throw new MyGenericException(error.getMessage(), error.getStatus());
+		}
+	}
+	
+	private HttpMessage createMessage(Status status, String message)
+	{
+		HttpMessage response = obFactory.createHttpMessage();
+		response.setStatusCode(status.getStatusCode());
+		response.setReasonPhrase(status.getReasonPhrase());
+		response.setMessage(message);
+		
+		return response;
+	}
+	
+	/**
+	 * Method associated with HTTP POST. It's used to append some flowrules to an ep-cp of the network element.
+	 * 
+	 * @param epcp the ep-cp with the flowrules to append.
+	 * @param uriInfo the information about the URI of the request.
+	 * @return a response that contains an HttpMessage object and the URL location of the ep-cp.
+	 * @throws MyNotFoundException if there is no graph or network element whose id is equal to the taken from URL one.
+	 * @throws MyConstraintViolationException if a validation error occurs during the process.
+	 * @throws MyGenericException in case of any other unpredictable errors.
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/Response.html">Response</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/POST.html">@POST</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Consumes.html">@Consumes</a>
+	 * @see EpCp
+	 * @see HttpMessage
+	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
+	 * @see MyGenericException
+	 */
+	@POST
+	@Consumes({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public Response addFlowrules(EpCp epcp, @Context UriInfo uriInfo) throws MyGenericException
+	{
+		int added;
+		validate(epcp);
+		
+		try
+		{
+			added = GraphsResource.lib.addFlowrules("nffg_" + graphId, neId, epcp);
+		}
+		catch (MyNotFoundException mnfe)
+		{
+			logger.log(Level.INFO, Status.NOT_FOUND.getReasonPhrase(), mnfe);
+			throw mnfe;
+		}
+		catch (MyConstraintViolationException mcve)
+		{
+			logger.log(Level.WARNING, Status.BAD_REQUEST.getReasonPhrase(), mcve);
+			throw mcve;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		URI epcpUri = uriInfo.getAbsolutePathBuilder().path(epcp.getIdRef()).build();
+		message = added + " flowrules appended, the ep-cp is reachable at " + epcpUri;
+		
+		return Response.created(epcpUri).entity(createMessage(Status.CREATED, message)).build();
+	}
+	
+	/**
+	 * Method associated with HTTP GET. It's used to retrieve the flowrules of an ep-cp of the network element.
+	 * 
+	 * @param idRef the id of the endpoint or connection point taken from URL.
+	 * @return the ep-cp with its flowrules.
+	 * @throws MyNotFoundException if there is no graph, network element or ep/cp whose id is equal to the taken from URL one.
+	 * @throws MyGenericException in case of any other unpredictable errors.
+	 * @see EpCp
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/PathParam.html">@PathParam</a>
+	 * @see MyNotFoundException
+	 * @see MyGenericException
+	 */
+	@GET
+	@Path("{idRef}")
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public EpCp getFlowrules(@PathParam("idRef") String idRef) throws MyGenericException
+	{
+		try
+		{
+			return GraphsResource.lib.retrieveFlowrules("nffg_" + graphId, neId, idRef);
+		}
+		catch (MyNotFoundException mnfe)
+		{
+			logger.log(Level.INFO, Status.NOT_FOUND.getReasonPhrase(), mnfe);
+			throw mnfe;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+	}
+	
+	/**
+	 * Method associated with HTTP PUT. It's used to replace all the flowrules of an ep-cp of the network element.
+	 * 
+	 * @param idRef the id of the endpoint or connection point taken from URL.
+	 * @param epcp the ep-cp with its new flowrules (its id_ref must be equal to the taken from URL one).
+	 * @return an object of the JAXB annotated HttpMessage class that contains the response.
+	 * @throws MyNotFoundException if there is no graph or network element whose id is equal to the taken from URL one.
+	 * @throws MyConstraintViolationException if a validation error occurs during the process.
+	 * @throws MyGenericException in case of any other unpredictable errors.
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/PUT.html">@PUT</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/PathParam.html">@PathParam</a>
+	 * @see EpCp
+	 * @see HttpMessage
+	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
+	 * @see MyGenericException
+	 */
+	@PUT
+	@Path("{idRef}")
+	@Consumes({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public HttpMessage replaceFlowrules(@PathParam("idRef") String idRef, EpCp epcp) throws MyGenericException
+	{
+		int written;
+		validate(epcp);
+		
+		if (!idRef.equals(epcp.getIdRef()))
+		{
+			message = "The id_ref of the ep-cp must be equal to '" + idRef + "'";
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		try
+		{
+			written = GraphsResource.lib.replaceFlowrules("nffg_" + graphId, neId, epcp);
+		}
+		catch (MyNotFoundException mnfe)
+		{
+			logger.log(Level.INFO, Status.NOT_FOUND.getReasonPhrase(), mnfe);
+			throw mnfe;
+		}
+		catch (MyConstraintViolationException mcve)
+		{
+			logger.log(Level.WARNING, Status.BAD_REQUEST.getReasonPhrase(), mcve);
+			throw mcve;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		return createMessage(Status.OK, "The ep-cp has now " + written + " flowrules");
+	}
+	
+	/**
+	 * Method associated with HTTP DELETE. It's used to remove all the flowrules of an ep-cp of the network element.
+	 * 
+	 * @param idRef the id of the endpoint or connection point taken from URL.
+	 * @return an empty No_Content Response.
+	 * @throws MyNotFoundException if there is no graph, network element or ep/cp whose id is equal to the taken from URL one, 
+	 * or if the ep-cp has no flowrules.
+	 * @throws MyGenericException in case of any other unpredictable errors.
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/DELETE.html">@DELETE</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/Response.html">Response</a>
+	 * @see MyNotFoundException
+	 * @see MyGenericException
+	 */
+	@DELETE
+	@Path("{idRef}")
+	public Response deleteFlowrules(@PathParam("idRef") String idRef) throws MyGenericException
+	{
+		int removed;
+		
+		try
+		{
+			removed = GraphsResource.lib.deleteFlowrules("nffg_" + graphId, neId, idRef);
+		}
+		catch (MyNotFoundException mnfe)
+		{
+			logger.log(Level.INFO, Status.NOT_FOUND.getReasonPhrase(), mnfe);
+			throw mnfe;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		if (removed == 0)
+		{
+			message = "The network element '" + neId + "' has no flowrules for the ep-cp whose id_ref = " + idRef;
+			logger.log(Level.INFO, message);
+			
+			throw new MyNotFoundException(message);
+		}
+		
+		return Response.noContent().build();
+	}
+}
@@ -21,27 +21,48 @@
  */
 package it.polito.nffg.neo4j.resources;
 
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.Variant;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
 
+import it.polito.nffg.neo4j.constraints.Graph;
 import it.polito.nffg.neo4j.exceptions.MyConstraintViolationException;
 import it.polito.nffg.neo4j.exceptions.MyGenericException;
 import it.polito.nffg.neo4j.exceptions.MyNotFoundException;
+import it.polito.nffg.neo4j.jaxb.HttpMessage;
 import it.polito.nffg.neo4j.jaxb.Nffg;
 import it.polito.nffg.neo4j.jaxb.ObjectFactory;
 import it.polito.nffg.neo4j.jaxb.Paths;
 import it.polito.nffg.neo4j.jaxb.Property;
+import it.polito.nffg.neo4j.manager.Neo4jLibrary;
+import it.polito.nffg.neo4j.manager.NffgField;
+import it.polito.nffg.neo4j.manager.NffgReachabilityMatrix;
+import it.polito.nffg.neo4j.manager.NffgResponseCache;
 
 /**
  * This class defines the methods that are mapped to HTTP request at path '/graphs/graphId'.
@@ -52,6 +73,9 @@ public class GraphResource
 	private String message;
 	private ObjectFactory obFactory = GraphsResource.lib.getObjectFactory();
 	private static Logger logger = Logger.getLogger(GraphResource.class.getCanonicalName());
+	private static final List<Variant> GRAPH_VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE).build();
+	private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+	private static final int MAX_SHORTEST_PATHS = 1000;
 	
 	/**
 	 * Constructor method that initializes graphId field with the value of the passed argument.
@@ -66,25 +90,131 @@ public class GraphResource
 	
 	/**
 	 * Method associated with HTTP GET. It's used to retrieve a requested graph.
+	 * The serialized graph is kept in the response cache (see {@link NffgResponseCache}), 
+	 * so the following requests for the same graph and media type don't read the database until the graph is changed.
+	 * The response carries the revision of the graph as entity tag: a request whose If-None-Match header 
+	 * contains it is answered with Not Modified, without loading the graph.
+	 * If fields is given, only the listed sections of the graph are read and returned (see {@link NffgField}); 
+	 * these partial responses aren't cached.
 	 * 
+	 * @param fields the comma separated list of the sections to return, or null to return the whole graph.
+	 * @param request the request, used to evaluate the preconditions and to select the media type of the response.
+	 * @param providers the providers, used to marshal the graph.
 	 * @return the requested graph.
 	 * @throws MyNotFoundException if there is no graph whose id is equal to the passed one.
+	 * @throws MyConstraintViolationException if fields contains an unknown section.
 	 * @throws MyGenericException in case of any other unpredictable errors.
 	 * @see Nffg
+	 * @see NffgField
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Produces.html">@Produces</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/QueryParam.html">@QueryParam</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/Context.html">@Context</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/Request.html">Request</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/ext/Providers.html">Providers</a>
 	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
 	 * @see MyGenericException
 	 */
 	@GET
 	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
-	public Nffg getGraph() throws MyGenericException
+	public Response getGraph(@QueryParam("fields") String fields, @Context Request request, @Context Providers providers) throws MyGenericException
+	{
+		NffgResponseCache cache = NffgResponseCache.instance;
+		String nffgId = "nffg_" + graphId;
+		Set<NffgField> sections = GraphsResource.parseFields(fields);
+		Long revision = getRevision();
+		EntityTag tag = toEntityTag(revision);
+		Response notModified = evaluatePreconditions(request, tag);
+		
+		if (notModified != null)
+		{
+			return notModified;
+		}
+		
+		if (!cache.isEnabled() || !sections.equals(NffgField.ALL))
+		{
+			return Response.ok(retrieveGraph(sections)).tag(tag).build();
+		}
+		
+		Variant variant = request.selectVariant(GRAPH_VARIANTS);
+		
+		if (variant == null)
+		{
+			return Response.notAcceptable(GRAPH_VARIANTS).build();
+		}
+		
+		MediaType type = variant.getMediaType();
+		byte[] body = cache.get(nffgId, type.toString(), revision);
+		
+		if (body == null)
+		{
+			long version = cache.version(nffgId);
+			Nffg graph = retrieveGraph(NffgField.ALL);
+			
+			try
+			{
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				MessageBodyWriter<Nffg> writer = providers.getMessageBodyWriter(Nffg.class, Nffg.class, NO_ANNOTATIONS, type);
+				writer.writeTo(graph, Nffg.class, Nffg.class, NO_ANNOTATIONS, type, new MultivaluedHashMap<String, Object>(), out);
+				body = out.toByteArray();
+			}
+			catch (Exception e)
+			{
+				logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+				throw new MyGenericException();
+			}
+			
+			// The body is cached with the revision of its entity tag: a later change makes it a miss.
+			if (revision != null)
+			{
+				cache.put(nffgId, type.toString(), body, revision, version);
+			}
+		}
+		
+		return Response.ok(body, type).tag(tag).build();
+	}
+	
+	/**
+	 * Reads the revision of the graph before the graph itself, so that the entity tag is never newer than the response.
+	 */
+	private EntityTag getEntityTag() throws MyGenericException
+	{
+		return toEntityTag(getRevision());
+	}
+	
+	private Long getRevision() throws MyGenericException
+	{
+		try
+		{
+			return GraphsResource.lib.getRevision("nffg_" + graphId);
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+	}
+	
+	private static EntityTag toEntityTag(Long revision)
+	{
+		return (revision == null) ? null : new EntityTag(Long.toHexString(revision), true);
+	}
+	
+	private Response evaluatePreconditions(Request request, EntityTag tag)
+	{
+		ResponseBuilder rb = (tag == null) ? null : request.evaluatePreconditions(tag);
+		
+		return (rb == null) ? null : rb.build();
+	}
+	
+	private Nffg retrieveGraph(Set<NffgField> fields) throws MyGenericException
 	{
 		Nffg graph;
 		
 		try
 		{
-			graph = GraphsResource.lib.retrieveNffg("nffg_" + graphId);
+			graph = GraphsResource.lib.retrieveNffg("nffg_" + graphId, fields);
 		}
 		catch (Exception e)
 		{
@@ -107,14 +237,23 @@ public class GraphResource
 	 * Method associated with HTTP GET. It's used to retrieve all paths from a source node to a destination one 
 	 * within the graph specified in the URL.
 	 * 
+	 * The paths are streamed as soon as they are found (see {@link PathsOutput}), and the search stops after limit paths 
+	 * or when timeoutMs milliseconds have passed: in both cases the response ends with truncated set to true. 
+	 * The response carries the revision of the graph as entity tag, like the one of {@link #getGraph(String, Request, Providers)}.
+	 * 
+	 * @param request the request, used to evaluate the preconditions and to select the media type of the response.
 	 * @param dir the direction considered in the calculation of paths (possible values are 'incoming', 
 	 * 'outgoing' and 'both').
 	 * @param src the id of the source node.
 	 * @param dst the id of the destination node.
+	 * @param limit the maximum number of paths returned.
+	 * @param maxDepth the maximum number of relationships of a path.
+	 * @param timeoutMs the milliseconds available for the search.
 	 * @return the retrieved paths.
 	 * @throws MyNotFoundException if there is no graph whose id is equal to the taken from URL one, or if this problem 
 	 * affects the source node or the destination one.
-	 * @throws MyConstraintViolationException if the value of direction isn't admissible.
+	 * @throws MyConstraintViolationException if the value of direction isn't admissible, or if the one of limit, 
+	 * maxDepth or timeoutMs isn't a positive integer.
 	 * @throws MyGenericException in case of any other unpredictable errors.
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
@@ -130,9 +269,101 @@ public class GraphResource
 	@GET
 	@Path("paths")
 	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
-	public Paths getPaths(@DefaultValue("both") @QueryParam("dir") String dir, @DefaultValue("src_x") @QueryParam("src") String src, @DefaultValue("dst_y") @QueryParam("dst") String dst) throws MyGenericException
+	public Response getPaths(@Context Request request, @DefaultValue("both") @QueryParam("dir") String dir, @DefaultValue("src_x") @QueryParam("src") String src, @DefaultValue("dst_y") @QueryParam("dst") String dst, 
+							 @DefaultValue("1000") @QueryParam("limit") String limit, @DefaultValue("50") @QueryParam("maxDepth") String maxDepth, 
+							 @DefaultValue("10000") @QueryParam("timeoutMs") String timeoutMs) throws MyGenericException
+	{
+		if (!dir.equals("incoming") && !dir.equals("outgoing") && !dir.equals("both"))
+		{
+			message = "The possible values for 'dir' are: 'incoming', 'outgoing' and 'both'";
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		if (!isPositive(limit) || !isPositive(maxDepth) || !isPositive(timeoutMs))
+		{
+			message = "The values of 'limit', 'maxDepth' and 'timeoutMs' must be positive integers";
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		Variant variant = request.selectVariant(GRAPH_VARIANTS);
+		
+		if (variant == null)
+		{
+			return Response.notAcceptable(GRAPH_VARIANTS).build();
+		}
+		
+		EntityTag tag = getEntityTag();
+		Response notModified = evaluatePreconditions(request, tag);
+		
+		if (notModified != null)
+		{
+			return notModified;
+		}
+		
+		try
+		{
+			// Once the streaming has begun the status can't change anymore, so the two nodes are looked up first.
+			GraphsResource.lib.checkPathEnds("nffg_" + graphId, src, dst);
+		}
+		catch (MyNotFoundException mnfe)
+		{
+			logger.log(Level.INFO, Status.NOT_FOUND.getReasonPhrase(), mnfe);
+			throw mnfe;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		PathsOutput paths = new PathsOutput("nffg_" + graphId, src, dst, dir, Integer.parseInt(maxDepth), Integer.parseInt(limit), 
+											Long.parseLong(timeoutMs), variant.getMediaType());
+		
+		return Response.ok(paths, variant.getMediaType()).tag(tag).build();
+	}
+	
+	/**
+	 * Method associated with HTTP GET. It's used to retrieve the k shortest paths from a source node to a destination one 
+	 * within the graph specified in the URL, the shortest first. These paths never cross a node twice.
+	 * 
+	 * The response carries the revision of the graph as entity tag, like the one of {@link #getGraph(String, Request, Providers)}.
+	 * 
+	 * @param request the request, used to evaluate the preconditions.
+	 * @param dir the direction considered in the calculation of paths (possible values are 'incoming', 
+	 * 'outgoing' and 'both').
+	 * @param src the id of the source node.
+	 * @param dst the id of the destination node.
+	 * @param k the number of paths returned (less if there aren't k paths), at most {@value #MAX_SHORTEST_PATHS}.
+	 * @param timeoutMs the milliseconds available for the search.
+	 * @return the retrieved paths.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the taken from URL one, or if this problem 
+	 * affects the source node or the destination one.
+	 * @throws MyConstraintViolationException if the value of direction isn't admissible, if the one of k 
+	 * isn't a positive integer up to {@value #MAX_SHORTEST_PATHS}, or if the one of timeoutMs isn't a positive integer.
+	 * @throws MyGenericException in case of any other unpredictable errors.
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Produces.html">@Produces</a>
+	 * @see Paths
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/DefaultValue.html">@DefaultValue</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/QueryParam.html">@QueryParam</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
+	 * @see MyGenericException
+	 */
+	@GET
+	@Path("paths/shortest")
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public Response getShortestPaths(@Context Request request, @DefaultValue("both") @QueryParam("dir") String dir, @DefaultValue("src_x") @QueryParam("src") String src, @DefaultValue("dst_y") @QueryParam("dst") String dst, 
+									 @DefaultValue("1") @QueryParam("k") String k, @DefaultValue("10000") @QueryParam("timeoutMs") String timeoutMs) throws MyGenericException
 	{
-		Set<String> paths;
+		final List<String> paths = new ArrayList<String>();
+		boolean truncated;
 		
 		if (!dir.equals("incoming") && !dir.equals("outgoing") && !dir.equals("both"))
 		{
@@ -142,9 +373,41 @@ public class GraphResource
 			throw new MyConstraintViolationException(message);
 		}
 		
+		if (!isPositive(k) || Integer.parseInt(k) > MAX_SHORTEST_PATHS)
+		{
+			message = "The value of 'k' must be a positive integer not greater than " + MAX_SHORTEST_PATHS;
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		if (!isPositive(timeoutMs))
+		{
+			message = "The value of 'timeoutMs' must be a positive integer";
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		EntityTag tag = getEntityTag();
+		Response notModified = evaluatePreconditions(request, tag);
+		
+		if (notModified != null)
+		{
+			return notModified;
+		}
+		
 		try
 		{
-			paths = GraphsResource.lib.findAllPaths("nffg_" + graphId, src, dst, dir);
+			truncated = GraphsResource.lib.findShortestPaths("nffg_" + graphId, src, dst, dir, Integer.parseInt(k), Long.parseLong(timeoutMs), 
+				new Neo4jLibrary.PathListener()
+				{
+					@Override
+					public void path(String path)
+					{
+						paths.add(path);
+					}
+				});
 		}
 		catch (MyNotFoundException mnfe)
 		{
@@ -171,13 +434,27 @@ public class GraphResource
 			p.getPath().addAll(paths);
 		}
 		
-		return p;
+		if (truncated)
+		{
+			p.setTruncated(true);
+		}
+		
+		return Response.ok(p).tag(tag).build();
+	}
+	
+	private static boolean isPositive(String value)
+	{
+		return value.matches("[0-9]{1,9}") && Integer.parseInt(value) > 0;
 	}
 	
 	/**
 	 * Method associated with HTTP GET. It's used to check whether a property on a given graph is satisfied or not. 
 	 * For the moment, the only property supported is 'reachability'.
 	 * 
+	 * The response carries the revision of the graph as entity tag, like the one of {@link #getGraph(String, Request, Providers)}.
+	 * 
+	 * @param request the request, used to evaluate the preconditions.
+	 * @param prop the name of the property.
 	 * @param dir the direction considered to determine whether a destination node is reachable 
 	 * from a source one or not (possible values are 'incoming', 'outgoing' and 'both').
 	 * @param src the id of the source node.
@@ -202,7 +479,7 @@ public class GraphResource
 	@GET
 	@Path("property")
 	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
-	public Property getProperty(@DefaultValue("reachability") @QueryParam("name") String prop, @DefaultValue("both") @QueryParam("dir") String dir, @DefaultValue("src_x") @QueryParam("src") String src, @DefaultValue("dst_y") @QueryParam("dst") String dst) throws MyGenericException
+	public Response getProperty(@Context Request request, @DefaultValue("reachability") @QueryParam("name") String prop, @DefaultValue("both") @QueryParam("dir") String dir, @DefaultValue("src_x") @QueryParam("src") String src, @DefaultValue("dst_y") @QueryParam("dst") String dst) throws MyGenericException
 	{		
 		if (!dir.equals("incoming") && !dir.equals("outgoing") && !dir.equals("both"))
 		{
@@ -216,11 +493,18 @@ public class GraphResource
 		{
 			case "reachability":
 			{
-				Set<String> paths;
+				boolean reachable;
+				EntityTag tag = getEntityTag();
+				Response notModified = evaluatePreconditions(request, tag);
+				
+				if (notModified != null)
+				{
+					return notModified;
+				}
 				
 				try
 				{
-					paths = GraphsResource.lib.findAllPaths("nffg_" + graphId, src, dst, dir);
+					reachable = GraphsResource.lib.isReachable("nffg_" + graphId, src, dst, dir);
 				}
 				catch (MyNotFoundException mnfe)
 				{
@@ -238,9 +522,9 @@ public class GraphResource
 				p.setSource(src);
 				p.setDestination(dst);
 				p.setDirection(dir);
-				p.setResponse((paths.isEmpty()) ? false : true);
+				p.setResponse(reachable);
 				
-				return p;
+				return Response.ok(p).tag(tag).build();
 			}
 			default:
 			{
@@ -252,6 +536,159 @@ public class GraphResource
 		}
 	}
 	
+	/**
+	 * Method associated with HTTP GET. It's used to check the reachability between every pair of nodes of a graph 
+	 * with a single request, instead of a request to {@link #getProperty(Request, String, String, String, String)} for each pair.
+	 * 
+	 * The parameters and the graph are checked before the response starts, then the rows are streamed 
+	 * while they are computed (see {@link ReachabilityMatrixOutput}), so the matrix is never held in memory.
+	 * The response carries the revision of the graph as entity tag, like the one of {@link #getGraph(String, Request, Providers)}.
+	 * 
+	 * @param request the request, used to evaluate the preconditions and to select the media type of the response.
+	 * @param dir the direction considered to determine whether a node is reachable from another one 
+	 * (possible values are 'incoming', 'outgoing' and 'both').
+	 * @param nodes the nodes of the matrix: 'all' (endpoints, network functions and connection points) or 'endpoints'.
+	 * @return the matrix, with the same elements as the JAXB annotated ReachabilityMatrix class.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the taken from URL one.
+	 * @throws MyConstraintViolationException if the value of direction or of nodes isn't admissible.
+	 * @throws MyGenericException in case of any other unpredictable errors.
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Produces.html">@Produces</a>
+	 * @see ReachabilityMatrixOutput
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/DefaultValue.html">@DefaultValue</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/QueryParam.html">@QueryParam</a>
+	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
+	 * @see MyGenericException
+	 */
+	@GET
+	@Path("reachability-matrix")
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public Response getReachabilityMatrix(@Context Request request, @DefaultValue("outgoing") @QueryParam("dir") String dir, @DefaultValue("all") @QueryParam("nodes") String nodes) throws MyGenericException
+	{
+		NffgReachabilityMatrix matrix;
+		
+		if (!dir.equals("incoming") && !dir.equals("outgoing") && !dir.equals("both"))
+		{
+			message = "The possible values for 'dir' are: 'incoming', 'outgoing' and 'both'";
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		if (!nodes.equals("all") && !nodes.equals("endpoints"))
+		{
+			message = "The possible values for 'nodes' are: 'all' and 'endpoints'";
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		Variant variant = request.selectVariant(GRAPH_VARIANTS);
+		
+		if (variant == null)
+		{
+			return Response.notAcceptable(GRAPH_VARIANTS).build();
+		}
+		
+		EntityTag tag = getEntityTag();
+		Response notModified = evaluatePreconditions(request, tag);
+		
+		if (notModified != null)
+		{
+			return notModified;
+		}
+		
+		try
+		{
+			matrix = GraphsResource.lib.getReachabilityMatrix("nffg_" + graphId, dir, nodes.equals("endpoints"));
+		}
+		catch (MyNotFoundException mnfe)
+		{
+			logger.log(Level.INFO, Status.NOT_FOUND.getReasonPhrase(), mnfe);
+			throw mnfe;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		return Response.ok(new ReachabilityMatrixOutput(matrix, dir, nodes, variant.getMediaType()), variant.getMediaType()).tag(tag).build();
+	}
+	
+	/**
+	 * Method associated with HTTP PUT. It's used to replace a graph with a new version of it, keeping its id.
+	 * Only the differences between the two versions are written into the database.
+	 * 
+	 * @param graph the new version of the graph.
+	 * @return an object of the JAXB annotated HttpMessage class that reports the number of applied changes.
+	 * @throws MyNotFoundException if there is no graph whose id is equal to the taken from URL one.
+	 * @throws MyConstraintViolationException if a validation error occurs during the process.
+	 * @throws MyGenericException in case of any other unpredictable errors.
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/PUT.html">@PUT</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Consumes.html">@Consumes</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Produces.html">@Produces</a>
+	 * @see Graph
+	 * @see Nffg
+	 * @see HttpMessage
+	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
+	 * @see MyGenericException
+	 */
+	@PUT
+	@Consumes({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public HttpMessage updateGraph(@Graph Nffg graph) throws MyGenericException
+	{
+		int changes;
+		
+		try
+		{
+			changes = GraphsResource.lib.updateNffg("nffg_" + graphId, graph);
+		}
+		catch (MyNotFoundException mnfe)
+		{
+			logger.log(Level.INFO, Status.NOT_FOUND.getReasonPhrase(), mnfe);
+			throw mnfe;
+		}
+		catch (MyConstraintViolationException mcve)
+		{
+			logger.log(Level.WARNING, Status.BAD_REQUEST.getReasonPhrase(), mcve);
+			throw mcve;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		HttpMessage response = obFactory.createHttpMessage();
+		response.setStatusCode(Status.OK.getStatusCode());
+		response.setReasonPhrase(Status.OK.getReasonPhrase());
+		response.setMessage("The graph has been updated with " + changes + " changes");
+		
+		return response;
+	}
+	
+	/**
+	 * Creates an instance of FlowrulesResource class for manage HTTP request at path 
+	 * '/graphs/graphId/network_elements/neId/flowrules'
+	 * 
+	 * @param neId the id of the network element taken directly from URL.
+	 * @return the created instance of FlowrulesResource class.
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see FlowrulesResource
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/PathParam.html">@PathParam</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/lang/String.html">String</a>
+	 */
+	@Path("network_elements/{ neId: ne_[0-9]+ }/flowrules")
+	public FlowrulesResource getFlowrules(@PathParam("neId") String neId)
+	{
+		return new FlowrulesResource(graphId, neId);
+	}
+	
 	/**
 	 * Method associated with HTTP DELETE. It's used to delete a graph.
 	 * 
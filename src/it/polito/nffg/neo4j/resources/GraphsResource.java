@@ -21,32 +21,46 @@
  */
 package it.polito.nffg.neo4j.resources;
 
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Link;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.core.Variant;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.Providers;
 
 import it.polito.nffg.neo4j.constraints.Graph;
 import it.polito.nffg.neo4j.exceptions.MyConstraintViolationException;
 import it.polito.nffg.neo4j.exceptions.MyGenericException;
 import it.polito.nffg.neo4j.exceptions.MyNotFoundException;
+import it.polito.nffg.neo4j.jaxb.BatchResult;
 import it.polito.nffg.neo4j.jaxb.HttpMessage;
 import it.polito.nffg.neo4j.jaxb.Nffg;
 import it.polito.nffg.neo4j.jaxb.NffgSet;
 import it.polito.nffg.neo4j.jaxb.ObjectFactory;
+import it.polito.nffg.neo4j.jaxb.Summaries;
 import it.polito.nffg.neo4j.manager.Neo4jLibrary;
+import it.polito.nffg.neo4j.manager.NffgField;
+import it.polito.nffg.neo4j.manager.NffgJobQueue;
 
 /**
  * This class defines the methods that are mapped to HTTP request at path '/graphs'.
@@ -63,28 +77,78 @@ public class GraphsResource
 	private ObjectFactory obFactory = lib.getObjectFactory();
 	private HttpMessage response = obFactory.createHttpMessage();
 	private static Logger logger = Logger.getLogger(GraphsResource.class.getCanonicalName());
+	private static final int TOO_MANY_REQUESTS = 429;
+	private static final List<Variant> SET_VARIANTS = Variant.mediaTypes(MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE).build();
 	
 	/**
 	 * Method associated with HTTP GET. It's used to retrieve all graphs.
+	 * If stream is true, the graphs are written one at a time as soon as they are loaded (see {@link NffgSetOutput}), 
+	 * instead of being loaded all together before the response is written.
+	 * If limit is given, only a page of graphs is returned: the first ones whose id follows the after parameter, 
+	 * in ascending order; if there are more graphs, the Link header contains the URL of the next page (rel="next").
+	 * If fields is given, only the listed sections of the graphs are read and returned (see {@link NffgField}).
+	 * If view is 'summary', a summary of each graph is returned instead (its id, version, time of creation 
+	 * and the number of its elements), that is read from the Nffg nodes only.
 	 * 
-	 * @return the retrieved graphs.
+	 * @param view the representation of the graphs: 'full' (the default) or 'summary'.
+	 * @param fields the comma separated list of the sections to return, or null to return the whole graphs.
+	 * @param limit the max number of graphs of the page, or null to retrieve all graphs.
+	 * @param after the id of the last graph of the previous page, or null to start from the first graph.
+	 * @param stream true if the response has to be streamed.
+	 * @param request the request, used to select the media type of the streamed response.
+	 * @param providers the providers, used to marshal the graphs of the streamed response.
+	 * @return the retrieved graphs, or their summaries.
 	 * @throws MyNotFoundException if there are no available graphs.
+	 * @throws MyConstraintViolationException if view, limit or after aren't admissible, or if fields contains an unknown section.
 	 * @throws MyGenericException in case of any other unpredictable errors.
 	 * @see NffgSet
+	 * @see Summaries
+	 * @see NffgField
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Produces.html">@Produces</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/QueryParam.html">@QueryParam</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/StreamingOutput.html">StreamingOutput</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/Link.html">Link</a>
 	 * @see MyNotFoundException
+	 * @see MyConstraintViolationException
 	 * @see MyGenericException
 	 */
 	@GET
 	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
-	public NffgSet getGraphs() throws MyGenericException
+	public Response getGraphs(@QueryParam("view") @DefaultValue("full") String view, @QueryParam("fields") String fields, 
+							  @QueryParam("limit") String limit, @QueryParam("after") String after, 
+							  @QueryParam("stream") @DefaultValue("false") boolean stream, 
+							  @Context Request request, @Context Providers providers) throws MyGenericException
 	{
 		NffgSet graphs;
+		Set<NffgField> sections = parseFields(fields);
+		
+		if (!view.equals("full") && !view.equals("summary"))
+		{
+			message = "The possible values for 'view' are: 'full' and 'summary'";
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		if (limit != null)
+		{
+			return getPage(view.equals("summary"), sections, limit, after, stream, request, providers);
+		}
+		
+		if (view.equals("summary"))
+		{
+			return Response.ok(summarizeGraphs(getAllIds())).build();
+		}
+		
+		if (stream)
+		{
+			return streamGraphs(sections, getAllIds(), request, providers);
+		}
 		
 		try
 		{
-			graphs = lib.retrieveNffgs("all");
+			graphs = lib.retrieveNffgs(sections, "all");
 		}
 		catch (Exception e)
 		{
@@ -100,33 +164,198 @@ public class GraphsResource
 			throw new MyNotFoundException(message);
 		}
 		
-		return graphs;
+		return Response.ok(graphs).build();
+	}
+	
+	/**
+	 * Parses the fields parameter of the graph resources, the whole graph if it's missing.
+	 */
+	static Set<NffgField> parseFields(String fields) throws MyConstraintViolationException
+	{
+		if (fields == null) {
+			return NffgField.ALL;
+		}
+		
+		try
+		{
+			return NffgField.parse(fields);
+		}
+		catch (IllegalArgumentException e)
+		{
+			logger.log(Level.WARNING, e.getMessage());
+			throw new MyConstraintViolationException(e.getMessage());
+		}
+	}
+	
+	private List<Integer> getAllIds() throws MyGenericException
+	{
+		try
+		{
+			return lib.getAllNffgIds();
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+	}
+	
+	private Response streamGraphs(Set<NffgField> fields, List<Integer> nffgIds, Request request, Providers providers) throws MyGenericException
+	{
+		List<String> ids = new ArrayList<String>();
+		Variant variant = request.selectVariant(SET_VARIANTS);
+		
+		if (variant == null)
+		{
+			return Response.notAcceptable(SET_VARIANTS).build();
+		}
+		
+		for (Integer id : nffgIds)
+		{
+			ids.add("nffg_" + id);
+		}
+		
+		if (ids.isEmpty()) 
+		{
+			message = "There are no available graphs";
+			logger.log(Level.INFO, message);
+			
+			throw new MyNotFoundException(message);
+		}
+		
+		return Response.ok(new NffgSetOutput(ids, fields, variant.getMediaType(), providers), variant.getMediaType()).build();
+	}
+	
+	private Summaries summarizeGraphs(List<Integer> ids) throws MyGenericException
+	{
+		Summaries summaries;
+		
+		try
+		{
+			summaries = lib.summarizeNffgs(ids);
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		if (summaries.getGraph().isEmpty()) 
+		{
+			message = "There are no available graphs";
+			logger.log(Level.INFO, message);
+			
+			throw new MyNotFoundException(message);
+		}
+		
+		return summaries;
+	}
+	
+	private Response getPage(boolean summary, Set<NffgField> fields, String limit, String after, boolean stream, Request request, Providers providers) throws MyGenericException
+	{
+		List<Integer> ids;
+		NffgSet graphs;
+		Link next = null;
+		
+		if (!limit.matches("[0-9]{1,9}") || Integer.parseInt(limit) == 0 || (after != null && !after.matches("[0-9]{1,9}")))
+		{
+			message = "The value of 'limit' must be a positive integer and the one of 'after' the id of a graph";
+			logger.log(Level.WARNING, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		int pageSize = Integer.parseInt(limit);
+		
+		try
+		{
+			// One more id tells whether there is a next page.
+			ids = lib.getNffgIdsAfter((after == null) ? -1 : Integer.parseInt(after), pageSize + 1);
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		if (ids.size() > pageSize)
+		{
+			ids = ids.subList(0, pageSize);
+			next = Link.fromUriBuilder(uriInfo.getRequestUriBuilder().replaceQueryParam("after", ids.get(pageSize - 1))).rel("next").build();
+		}
+		
+		if (summary)
+		{
+			return Response.ok(summarizeGraphs(ids)).links(next).build();
+		}
+		
+		if (stream)
+		{
+			return Response.fromResponse(streamGraphs(fields, ids, request, providers)).links(next).build();
+		}
+		
+		if (ids.isEmpty()) 
+		{
+			message = "There are no available graphs";
+			logger.log(Level.INFO, message);
+			
+			throw new MyNotFoundException(message);
+		}
+		
+		String[] graphIds = new String[ids.size()];
+		
+		for (int i = 0; i < graphIds.length; i++)
+		{
+			graphIds[i] = String.valueOf(ids.get(i));
+		}
+		
+		try
+		{
+			graphs = lib.retrieveNffgs(fields, graphIds);
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		return Response.ok(graphs).links(next).build();
 	}
 	
 	/**
 	 * Method associated with HTTP POST. It's used to create a graph.
+	 * If async is true, the graph is only validated and queued: the response (202 Accepted) contains the URL of the job 
+	 * that reports the outcome of the creation, or asks to retry later (429 Too Many Requests) if the queue is full.
 	 * 
 	 * @param graph the given graph.
+	 * @param async true if the graph has to be created asynchronously.
 	 * @return a response that contains ah HttpMessage object and the URL location.
 	 * @throws MyConstraintViolationException if a validation error occurs during the process.
 	 * @throws MyGenericException in case of any other unpredictable errors.
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/Response.html">Response</a>
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/POST.html">@POST</a>
 	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Consumes.html">@Consumes</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/QueryParam.html">@QueryParam</a>
 	 * @see Graph
 	 * @see Nffg
 	 * @see HttpMessage
+	 * @see NffgJobQueue
 	 * @see MyConstraintViolationException
 	 * @see MyGenericException
 	 */
 	@POST
 	@Consumes({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
-	public Response createGraph(@Graph Nffg graph) throws MyGenericException
+	public Response createGraph(@Graph Nffg graph, @QueryParam("async") @DefaultValue("false") boolean async) throws MyGenericException
 	{
 		Integer nffgId;
 		URI graphUri = null;
 		String absPath = uriInfo.getAbsolutePath().toString();
 		
+		if (async)
+		{
+			return submitGraph(graph);
+		}
+		
 		try
 		{
 			nffgId = lib.createNffg(graph);
@@ -163,6 +392,196 @@ public class GraphsResource
 		return Response.created(graphUri).entity(response).build();
 	}
 	
+	private Response submitGraph(Nffg graph) throws MyGenericException
+	{
+		String jobId;
+		
+		try
+		{
+			jobId = NffgJobQueue.instance.submit(graph);
+		}
+		catch (MyConstraintViolationException mcve)
+		{
+			logger.log(Level.WARNING, Status.BAD_REQUEST.getReasonPhrase(), mcve);
+			throw mcve;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		if (jobId == null)
+		{
+			message = "The queue of the graphs to be created is full, retry later";
+			logger.log(Level.INFO, message);
+			
+			response.setStatusCode(TOO_MANY_REQUESTS);
+			response.setReasonPhrase("Too Many Requests");
+			response.setMessage(message);
+			
+			return Response.status(TOO_MANY_REQUESTS).header("Retry-After", NffgJobQueue.instance.getRetryAfter()).entity(response).build();
+		}
+		
+		URI jobUri = uriInfo.getBaseUriBuilder().path(JobsResource.class).path(jobId).build();
+		response.setStatusCode(Status.ACCEPTED.getStatusCode());
+		response.setReasonPhrase(Status.ACCEPTED.getReasonPhrase());
+		response.setMessage("The creation of the graph has been queued, its state is reachable at " + jobUri);
+		
+		return Response.accepted(response).location(jobUri).build();
+	}
+	
+	/**
+	 * Method associated with HTTP POST at path '/graphs/batch', for JSON sets. It's used to create a set of graphs with a single request.
+	 * Each graph is validated and created on its own, so the response reports, for each graph of the set, 
+	 * the id assigned to it or the error that prevented its creation.
+	 * 
+	 * @param graphs the given graphs.
+	 * @param chunkSize the number of graphs committed by each transaction.
+	 * @return the outcome of the creation of each graph.
+	 * @throws MyConstraintViolationException if the set is empty or the chunk size isn't a positive number.
+	 * @see NffgSet
+	 * @see BatchResult
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/POST.html">@POST</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/QueryParam.html">@QueryParam</a>
+	 * @see MyConstraintViolationException
+	 */
+	@POST
+	@Path("batch")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public BatchResult createGraphs(NffgSet graphs, @QueryParam("chunk") @DefaultValue("100") int chunkSize) throws MyGenericException
+	{
+		if (graphs == null || graphs.getNffg().isEmpty() || chunkSize < 1)
+		{
+			message = (chunkSize < 1) ? "The chunk size must be a positive number" : "The set doesn't contain any graph";
+			logger.log(Level.INFO, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		return report(lib.createNffgs(graphs.getNffg(), chunkSize, new SchemaValidator()));
+	}
+	
+	/**
+	 * Method associated with HTTP POST at path '/graphs/batch', for XML sets. It works like {@link #createGraphs(NffgSet, int)}, 
+	 * but the document is read as a stream: only the graphs of the chunk being created are kept in memory, 
+	 * so the size of the set isn't bounded by the memory of the server. If the document becomes unreadable, 
+	 * the graphs before that point are created anyway and the last entry of the response reports the error.
+	 * 
+	 * @param body the nffg-set document.
+	 * @param chunkSize the number of graphs committed by each transaction.
+	 * @return the outcome of the creation of each graph.
+	 * @throws MyConstraintViolationException if the set is empty, the document can't be read before its first graph or the chunk size isn't a positive number.
+	 * @throws MyGenericException in case of any other unpredictable errors.
+	 * @see BatchResult
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/POST.html">@POST</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/QueryParam.html">@QueryParam</a>
+	 * @see <a href="https://docs.oracle.com/javase/7/docs/api/java/io/InputStream.html">InputStream</a>
+	 * @see MyConstraintViolationException
+	 * @see MyGenericException
+	 */
+	@POST
+	@Path("batch")
+	@Consumes(MediaType.APPLICATION_XML)
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public BatchResult createGraphs(InputStream body, @QueryParam("chunk") @DefaultValue("100") int chunkSize) throws MyGenericException
+	{
+		List<Neo4jLibrary.CreationResult> outcomes;
+		
+		if (chunkSize < 1)
+		{
+			message = "The chunk size must be a positive number";
+			logger.log(Level.INFO, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		try
+		{
+			outcomes = lib.createNffgs(body, chunkSize, new SchemaValidator());
+		}
+		catch (MyConstraintViolationException mcve)
+		{
+			logger.log(Level.WARNING, Status.BAD_REQUEST.getReasonPhrase(), mcve);
+			throw mcve;
+		}
+		catch (Exception e)
+		{
+			logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), e);
+			throw new MyGenericException();
+		}
+		
+		if (outcomes.isEmpty())
+		{
+			message = "The set doesn't contain any graph";
+			logger.log(Level.INFO, message);
+			
+			throw new MyConstraintViolationException(message);
+		}
+		
+		return report(outcomes);
+	}
+	
+	/**
+	 * Validates each graph of a batch against the schema, as the Graph constraint does for a single graph.
+	 */
+	private static class SchemaValidator implements Neo4jLibrary.GraphValidator
+	{
+		private final Graph.Validator validator = new Graph.Validator();
+		
+		@Override
+		public void validate(Nffg graph) throws MyGenericException
+		{
+			Graph.Validator.Result error = validator.validate(graph);
+			
+			if (error != null) {
+				throw new MyGenericException(error.getMessage(), error.getStatus());
+			}
+		}
+	}
+	
+	private BatchResult report(List<Neo4jLibrary.CreationResult> outcomes)
+	{
+		BatchResult result = obFactory.createBatchResult();
+		int created = 0;
+		
+		for (int i = 0; i < outcomes.size(); i++)
+		{
+			Neo4jLibrary.CreationResult outcome = outcomes.get(i);
+			BatchResult.Graph entry = obFactory.createBatchResultGraph();
+			entry.setIndex(i);
+			result.getGraph().add(entry);
+			
+			if (outcome.getError() == null)
+			{
+				URI graphUri = uriInfo.getBaseUriBuilder().path(GraphsResource.class).path(outcome.getId().toString()).build();
+				entry.setStatusCode(Status.CREATED.getStatusCode());
+				entry.setId(outcome.getId().toString());
+				entry.setMessage("The graph is now reachable at " + graphUri);
+				created++;
+			}
+			else if (outcome.getError() instanceof MyGenericException)
+			{
+				Status status = ((MyGenericException) outcome.getError()).getStatus();
+				logger.log((status == Status.INTERNAL_SERVER_ERROR) ? Level.SEVERE : Level.WARNING, status.getReasonPhrase(), outcome.getError());
+				entry.setStatusCode(status.getStatusCode());
+				entry.setMessage(outcome.getError().getMessage());
+			}
+			else
+			{
+				logger.log(Level.SEVERE, Status.INTERNAL_SERVER_ERROR.getReasonPhrase(), outcome.getError());
+				entry.setStatusCode(Status.INTERNAL_SERVER_ERROR.getStatusCode());
+				entry.setMessage(Status.INTERNAL_SERVER_ERROR.getReasonPhrase());
+			}
+		}
+		
+		result.setCreated(created);
+		result.setFailed(result.getGraph().size() - created);
+		
+		return result;
+	}
+	
 	/**
 	 * Creates an instance of GraphResource class for manage HTTP request at path '/graphs/graphId'
 	 * 
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.resources;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import it.polito.nffg.neo4j.exceptions.MyGenericException;
+import it.polito.nffg.neo4j.exceptions.MyNotFoundException;
+import it.polito.nffg.neo4j.jaxb.Job;
+import it.polito.nffg.neo4j.manager.NffgJobQueue;
+
+/**
+ * This class defines the methods that are mapped to HTTP request at path '/jobs'.
+ *
+ * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+ */
+@Path("/jobs")
+public class JobsResource 
+{
+	private static Logger logger = Logger.getLogger(JobsResource.class.getCanonicalName());
+	
+	/**
+	 * Method associated with HTTP GET at path '/jobs/jobId'. It's used to retrieve the state of the asynchronous 
+	 * creation of a graph.
+	 * 
+	 * @param id the jobId taken directly from URL.
+	 * @return the state of the job.
+	 * @throws MyNotFoundException if there is no job whose id is equal to the passed one (or it is too old).
+	 * @see Job
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/GET.html">@GET</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Path.html">@Path</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/Produces.html">@Produces</a>
+	 * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/PathParam.html">@PathParam</a>
+	 * @see MyNotFoundException
+	 */
+	@GET
+	@Path("{ jobId: [0-9]+ }")
+	@Produces({ MediaType.APPLICATION_XML, MediaType.APPLICATION_JSON })
+	public Job getJob(@PathParam("jobId") String id) throws MyGenericException
+	{
+		Job job = NffgJobQueue.instance.getJob(id);
+		
+		if (job == null) 
+		{
+			String message = "There is no job whose Id is '" + id + "'";
+			logger.log(Level.INFO, message);
+			
+			throw new MyNotFoundException(message);
+		}
+		
+		return job;
+	}
+}
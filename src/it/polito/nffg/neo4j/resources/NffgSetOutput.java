@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import it.polito.nffg.neo4j.jaxb.Nffg;
+import it.polito.nffg.neo4j.manager.NffgField;
+
+/**
+ * Writes a nffg-set document as a stream: the envelope (the nffg-set element, or the JSON object with the nffg array) 
+ * is written first, then each graph is loaded and marshalled on its own, as soon as the previous one has been sent.
+ * Then the memory needed doesn't depend on the number of graphs, but only on the size of the largest graph.
+ * 
+ * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/StreamingOutput.html">StreamingOutput</a>
+ */
+class NffgSetOutput implements StreamingOutput
+{
+	private static final String NFFG_NAMESPACE = "http://www.example.org/nffg/";
+	private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+	private static JAXBContext context;
+	
+	private final List<String> ids;
+	private final Set<NffgField> fields;
+	private final MediaType type;
+	private final Providers providers;
+	
+	/**
+	 * @param ids the ids of the graphs, in the order they have to be written. 
+	 * The graphs deleted before being reached are skipped.
+	 * @param fields the sections of the graphs to write.
+	 * @param type the media type of the document (XML or JSON).
+	 * @param providers the providers, used to marshal the graphs into JSON as Jersey does.
+	 */
+	NffgSetOutput(List<String> ids, Set<NffgField> fields, MediaType type, Providers providers)
+	{
+		this.ids = ids;
+		this.fields = fields;
+		this.type = type;
+		this.providers = providers;
+	}
+	
+	private static synchronized JAXBContext getContext() throws JAXBException
+	{
+		if (context == null) {
+			context = JAXBContext.newInstance(Nffg.class);
+		}
+		
+		return context;
+	}
+	
+	private Nffg retrieve(String id) throws IOException
+	{
+		try
+		{
+			return GraphsResource.lib.retrieveNffg(id, fields);
+		}
+		catch (Exception e)
+		{
+			throw new IOException("The graph '" + id + "' can't be retrieved", e);
+		}
+	}
+	
+	@Override
+	public void write(OutputStream out) throws IOException, WebApplicationException
+	{
+		if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+			writeJson(out);
+		}
+		else {
+			writeXml(out);
+		}
+	}
+	
+	private void writeXml(OutputStream out) throws IOException
+	{
+		try
+		{
+			XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+			Marshaller marshaller = getContext().createMarshaller();
+			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+			
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.setDefaultNamespace(NFFG_NAMESPACE);
+			writer.writeStartElement(NFFG_NAMESPACE, "nffg-set");
+			writer.writeDefaultNamespace(NFFG_NAMESPACE);
+			
+			for (String id : ids)
+			{
+				Nffg graph = retrieve(id);
+				
+				if (graph != null)
+				{
+					marshaller.marshal(graph, writer);
+					writer.flush();
+				}
+			}
+			
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush();
+		}
+		catch (JAXBException | XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+	}
+	
+	private void writeJson(OutputStream out) throws IOException
+	{
+		MessageBodyWriter<Nffg> writer = providers.getMessageBodyWriter(Nffg.class, Nffg.class, NO_ANNOTATIONS, type);
+		boolean first = true;
+		
+		out.write("{\"nffg\":[".getBytes(StandardCharsets.UTF_8));
+		
+		for (String id : ids)
+		{
+			Nffg graph = retrieve(id);
+			
+			if (graph != null)
+			{
+				if (!first) {
+					out.write(',');
+				}
+				
+				writer.writeTo(graph, Nffg.class, Nffg.class, NO_ANNOTATIONS, type, new MultivaluedHashMap<String, Object>(), out);
+				out.flush();
+				first = false;
+			}
+		}
+		
+		out.write("]}".getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+}
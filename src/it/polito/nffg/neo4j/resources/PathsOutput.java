@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import it.polito.nffg.neo4j.manager.Neo4jLibrary.PathListener;
+
+/**
+ * Writes a paths document as a stream: each path is sent as soon as the search finds it, 
+ * so the client receives the first paths while the search is still going on and the paths are never 
+ * collected in memory. The message (if no path has been found) and the truncated flag (if the search 
+ * has been stopped by the limit or by the timeout) follow the paths, once the search is over.
+ * If the client goes away, the next path can't be written and the search is aborted.
+ * 
+ * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/StreamingOutput.html">StreamingOutput</a>
+ */
+class PathsOutput implements StreamingOutput
+{
+	private static final String RESPONSE_NAMESPACE = "http://www.example.org/response/";
+	private static final String NO_PATHS = "No available paths";
+	
+	private final String nffgId;
+	private final String src;
+	private final String dst;
+	private final String dir;
+	private final int maxDepth;
+	private final int limit;
+	private final long timeoutMs;
+	private final MediaType type;
+	private int count;
+	
+	/**
+	 * @param nffgId the id of the graph.
+	 * @param src the id of the source node.
+	 * @param dst the id of the destination node.
+	 * @param dir the direction considered in the calculation of paths.
+	 * @param maxDepth the maximum number of relationships of a path.
+	 * @param limit the maximum number of paths to write.
+	 * @param timeoutMs the milliseconds available for the search.
+	 * @param type the media type of the document (XML or JSON).
+	 */
+	PathsOutput(String nffgId, String src, String dst, String dir, int maxDepth, int limit, long timeoutMs, MediaType type)
+	{
+		this.nffgId = nffgId;
+		this.src = src;
+		this.dst = dst;
+		this.dir = dir;
+		this.maxDepth = maxDepth;
+		this.limit = limit;
+		this.timeoutMs = timeoutMs;
+		this.type = type;
+	}
+	
+	private boolean search(PathListener listener) throws IOException
+	{
+		try
+		{
+			return GraphsResource.lib.findPaths(nffgId, src, dst, dir, maxDepth, limit, timeoutMs, listener);
+		}
+		catch (IOException ioe)
+		{
+			throw ioe;
+		}
+		catch (Exception e)
+		{
+			throw new IOException("The paths of the graph '" + nffgId + "' can't be searched", e);
+		}
+	}
+	
+	@Override
+	public void write(OutputStream out) throws IOException, WebApplicationException
+	{
+		if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+			writeJson(out);
+		}
+		else {
+			writeXml(out);
+		}
+	}
+	
+	private void writeXml(OutputStream out) throws IOException
+	{
+		try
+		{
+			final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+			
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.setDefaultNamespace(RESPONSE_NAMESPACE);
+			writer.writeStartElement(RESPONSE_NAMESPACE, "paths");
+			writer.writeDefaultNamespace(RESPONSE_NAMESPACE);
+			writer.writeAttribute("source", src);
+			writer.writeAttribute("destination", dst);
+			writer.writeAttribute("direction", dir);
+			
+			boolean truncated = search(new PathListener()
+			{
+				@Override
+				public void path(String path) throws IOException
+				{
+					try
+					{
+						writer.writeStartElement(RESPONSE_NAMESPACE, "path");
+						writer.writeCharacters(path);
+						writer.writeEndElement();
+						writer.flush();
+						count++;
+					}
+					catch (XMLStreamException e)
+					{
+						throw new IOException(e);
+					}
+				}
+			});
+			
+			if (count == 0)
+			{
+				writer.writeStartElement(RESPONSE_NAMESPACE, "message");
+				writer.writeCharacters(NO_PATHS);
+				writer.writeEndElement();
+			}
+			
+			if (truncated)
+			{
+				writer.writeStartElement(RESPONSE_NAMESPACE, "truncated");
+				writer.writeCharacters("true");
+				writer.writeEndElement();
+			}
+			
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush();
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+	}
+	
+	private void writeJson(OutputStream out) throws IOException
+	{
+		final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		
+		writer.write("{\"source\":" + quote(src) + ",\"destination\":" + quote(dst) + ",\"direction\":" + quote(dir));
+		
+		boolean truncated = search(new PathListener()
+		{
+			@Override
+			public void path(String path) throws IOException
+			{
+				writer.write(((count == 0) ? ",\"path\":[" : ",") + quote(path));
+				writer.flush();
+				count++;
+			}
+		});
+		
+		writer.write((count == 0) ? ",\"message\":" + quote(NO_PATHS) : "]");
+		
+		if (truncated) {
+			writer.write(",\"truncated\":true");
+		}
+		
+		writer.write("}");
+		writer.flush();
+	}
+	
+	/**
+	 * @return the string as a JSON string literal.
+	 */
+	static String quote(String s)
+	{
+		StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+		
+		for (int i = 0; i < s.length(); i++)
+		{
+			char c = s.charAt(i);
+			
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				sb.append(c);
+			}
+		}
+		
+		return sb.append('"').toString();
+	}
+}
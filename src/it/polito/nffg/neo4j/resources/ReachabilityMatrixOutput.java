@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Politecnico di Torino
+ * Authors:
+ * Project Supervisor and Contact: Riccardo Sisto (riccardo.sisto@polito.it)
+ * 
+ * This file is part of Verigraph.
+ * 
+ * Verigraph is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of
+ * the License, or (at your option) any later version.
+ * 
+ * Verigraph is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public
+ * License along with Verigraph.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package it.polito.nffg.neo4j.resources;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import it.polito.nffg.neo4j.manager.NffgReachabilityMatrix;
+import it.polito.nffg.neo4j.manager.NffgReachabilityMatrix.RowListener;
+
+/**
+ * Writes a reachability matrix document as a stream: the graph has already been read, 
+ * and each row is sent as soon as it's computed, so the rows are never collected in memory. 
+ * The document has the same elements as the ReachabilityMatrix class.
+ * If the client goes away, the next row can't be written and the computation is aborted.
+ * 
+ * @see <a href="https://jersey.java.net/nonav/apidocs/latest/jersey/javax/ws/rs/core/StreamingOutput.html">StreamingOutput</a>
+ */
+class ReachabilityMatrixOutput implements StreamingOutput
+{
+	private static final String RESPONSE_NAMESPACE = "http://www.example.org/response/";
+	
+	private final NffgReachabilityMatrix matrix;
+	private final String dir;
+	private final String nodes;
+	private final MediaType type;
+	private int count;
+	
+	/**
+	 * @param matrix the matrix, whose rows are computed while they are written.
+	 * @param dir the direction considered to determine whether a node is reachable from another one.
+	 * @param nodes the nodes of the matrix ('all' or 'endpoints').
+	 * @param type the media type of the document (XML or JSON).
+	 */
+	ReachabilityMatrixOutput(NffgReachabilityMatrix matrix, String dir, String nodes, MediaType type)
+	{
+		this.matrix = matrix;
+		this.dir = dir;
+		this.nodes = nodes;
+		this.type = type;
+	}
+	
+	@Override
+	public void write(OutputStream out) throws IOException, WebApplicationException
+	{
+		if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+			writeJson(out);
+		}
+		else {
+			writeXml(out);
+		}
+	}
+	
+	private void writeXml(OutputStream out) throws IOException
+	{
+		try
+		{
+			final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+			
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.setDefaultNamespace(RESPONSE_NAMESPACE);
+			writer.writeStartElement(RESPONSE_NAMESPACE, "reachabilityMatrix");
+			writer.writeDefaultNamespace(RESPONSE_NAMESPACE);
+			writer.writeAttribute("direction", dir);
+			writer.writeAttribute("nodes", nodes);
+			
+			for (String node : matrix.getNodes())
+			{
+				writer.writeStartElement(RESPONSE_NAMESPACE, "node");
+				writer.writeCharacters(node);
+				writer.writeEndElement();
+			}
+			
+			matrix.rows(new RowListener()
+			{
+				@Override
+				public void row(String row) throws IOException
+				{
+					try
+					{
+						writer.writeStartElement(RESPONSE_NAMESPACE, "row");
+						writer.writeCharacters(row);
+						writer.writeEndElement();
+						
+						// The rows are flushed a few at a time, so the client receives them while the others are computed.
+						if ((++count & 63) == 0) {
+							writer.flush();
+						}
+					}
+					catch (XMLStreamException e)
+					{
+						throw new IOException(e);
+					}
+				}
+			});
+			
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush();
+		}
+		catch (XMLStreamException e)
+		{
+			throw new IOException(e);
+		}
+	}
+	
+	private void writeJson(OutputStream out) throws IOException
+	{
+		final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		List<String> names = matrix.getNodes();
+		
+		writer.write("{\"direction\":" + PathsOutput.quote(dir) + ",\"nodes\":" + PathsOutput.quote(nodes));
+		
+		for (int i = 0; i < names.size(); i++)
+		{
+			writer.write(((i == 0) ? ",\"node\":[" : ",") + PathsOutput.quote(names.get(i)));
+		}
+		
+		if (!names.isEmpty()) {
+			writer.write("]");
+		}
+		
+		matrix.rows(new RowListener()
+		{
+			@Override
+			public void row(String row) throws IOException
+			{
+				writer.write(((count == 0) ? ",\"row\":[" : ",") + PathsOutput.quote(row));
+				
+				if ((++count & 63) == 0) {
+					writer.flush();
+				}
+			}
+		});
+		
+		if (count != 0) {
+			writer.write("]");
+		}
+		
+		writer.write("}");
+		writer.flush();
+	}
+}